@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for hashing a password with bcrypt at cost 8, as done for every connection to a
+ * Wattpilot Flex, through the vendored {@link BCrypt} and the {@link BCryptEngine}.
+ *
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:exec "-Djmh.args=BCryptBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BCryptBenchmark {
+    // SHA-256 hex string of the password, as hashed by AuthUtil
+    static final String PASSWORD =
+            "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    static final byte[] SALT = {0, 0, 0, 0, 0, 0, 0, 0, 9, 1, 2, 3, 4, 5, 6, 7};
+    static final String ENCODED_SALT = "$2a$08$" + BCrypt.encode_base64(SALT, SALT.length);
+
+    private final byte[] password = (PASSWORD + "\000").getBytes(StandardCharsets.UTF_8);
+
+    /** Hashing through {@link BCrypt#hashpw(String, String)} with the encoded salt. */
+    @Benchmark
+    public String bcrypt() {
+        return BCrypt.hashpw(PASSWORD, ENCODED_SALT).substring(ENCODED_SALT.length());
+    }
+
+    /** Hashing through the {@link BCryptEngine} of the current thread with the raw salt. */
+    @Benchmark
+    public byte[] engine() {
+        byte[] hash = BCryptEngine.get().hash(password, SALT, 8);
+        return BCryptEngine.encodeBase64(hash, BCryptEngine.HASH_LENGTH);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.PartialStatus;
+import dev.digiried.wattpilot.messages.DeltaStatusMessage;
+import dev.digiried.wattpilot.messages.Message;
+import dev.digiried.wattpilot.messages.MessageDecoder;
+import dev.digiried.wattpilot.messages.MessageDeserializer;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for decoding a <code>deltaStatus</code> frame, comparing the message decoders with the
+ * {@link StatusDecoder} used by the {@link WattpilotClient}.
+ *
+ * <p>Run with the GC profiler to see the steady-state allocations per delta (<code>
+ * gc.alloc.rate.norm</code>):
+ *
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:exec "-Djmh.args=DeltaStatusBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeltaStatusBenchmark {
+    static final String DELTA_STATUS =
+            "{\"type\":\"deltaStatus\",\"status\":{\"nrg\":[231,232,230,2,16,16,15,3700,3710,3450,"
+                    + "0,10860,99,98,99,0],\"car\":2,\"amp\":16,\"wh\":5321.5,\"rssi\":-61,"
+                    + "\"tma\":[25.5,26.125],\"fhz\":49.98,\"rbt\":123456789}}";
+
+    private final Gson gson =
+            new GsonBuilder()
+                    .registerTypeAdapter(Message.class, new MessageDeserializer())
+                    .create();
+    private final MessageDecoder streamingDecoder = new MessageDecoder(gson);
+    private final StatusDecoder statusDecoder = new StatusDecoder();
+    private final WattpilotStatus.Builder status = new WattpilotStatus.Builder();
+    private final PropertyStore properties = new PropertyStore();
+
+    /** Tree-based decoding through {@link MessageDeserializer} to a {@link PartialStatus}. */
+    @Benchmark
+    public Object treeDeserializer() {
+        return ((DeltaStatusMessage) gson.fromJson(DELTA_STATUS, Message.class)).status;
+    }
+
+    /** Streaming decoding through {@link MessageDecoder} to a {@link PartialStatus}. */
+    @Benchmark
+    public Object streamingDecoder() {
+        return ((DeltaStatusMessage) streamingDecoder.decode(DELTA_STATUS)).status;
+    }
+
+    /**
+     * Decoding directly into the {@link WattpilotStatus} through the {@link StatusDecoder}, the
+     * same way the {@link WattpilotClient} applies status frames.
+     */
+    @Benchmark
+    public WattpilotStatus.Builder statusDecoder() {
+        statusDecoder.statusType(DELTA_STATUS);
+        statusDecoder.apply(DELTA_STATUS, status, properties);
+        return status;
+    }
+}
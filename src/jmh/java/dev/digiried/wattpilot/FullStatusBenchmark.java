@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.messages.FullStatusMessage;
+import dev.digiried.wattpilot.messages.Message;
+import dev.digiried.wattpilot.messages.MessageDecoder;
+import dev.digiried.wattpilot.messages.MessageDeserializer;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for decoding a <code>fullStatus</code> frame, where only a few of several hundred keys
+ * are modelled by the {@link WattpilotStatus}.
+ *
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:exec "-Djmh.args=FullStatusBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FullStatusBenchmark {
+    static final String FULL_STATUS = createFullStatus();
+
+    private final Gson gson =
+            new GsonBuilder()
+                    .registerTypeAdapter(Message.class, new MessageDeserializer())
+                    .create();
+    private final MessageDecoder streamingDecoder = new MessageDecoder(gson);
+    private final StatusDecoder statusDecoder = new StatusDecoder();
+    private final WattpilotStatus.Builder status = new WattpilotStatus.Builder();
+    private final PropertyStore properties = new PropertyStore();
+
+    /**
+     * Create a full status frame with the modelled keys and 300 unmodelled keys of various types.
+     */
+    private static String createFullStatus() {
+        StringBuilder sb =
+                new StringBuilder("{\"type\":\"fullStatus\",\"partial\":false,\"status\":{");
+        sb.append("\"alw\":true,\"acs\":0,\"ebe\":false,\"ebt\":20,\"amp\":16,\"car\":1,")
+                .append("\"eto\":1234567,\"frc\":0,\"fsp\":false,\"fst\":1400,\"fam\":40,")
+                .append("\"lmo\":3,\"wh\":5321.5,")
+                .append("\"nrg\":[231,232,230,2,0,0,0,0,0,0,0,0,0,0,0,0]");
+        for (int i = 0; i < 300; i++) {
+            sb.append(",\"k").append(i).append("\":");
+            switch (i % 5) {
+                case 0 -> sb.append(i * 1.5);
+                case 1 -> sb.append("\"value \\\"").append(i).append("\\\"\"");
+                case 2 -> sb.append("[1,2.5,\"x\",{\"a\":[true,null]}]");
+                case 3 ->
+                        sb.append("{\"id\":").append(i).append(",\"name\":\"card\",\"energy\":0}");
+                default -> sb.append(i % 2 == 0);
+            }
+        }
+        return sb.append("}}").toString();
+    }
+
+    /**
+     * Tree-based decoding through {@link MessageDeserializer} to a {@link
+     * dev.digiried.wattpilot.dto.PartialStatus}.
+     */
+    @Benchmark
+    public Object treeDeserializer() {
+        return ((FullStatusMessage) gson.fromJson(FULL_STATUS, Message.class)).status;
+    }
+
+    /**
+     * Streaming decoding through {@link MessageDecoder} to a {@link
+     * dev.digiried.wattpilot.dto.PartialStatus}.
+     */
+    @Benchmark
+    public Object streamingDecoder() {
+        return ((FullStatusMessage) streamingDecoder.decode(FULL_STATUS)).status;
+    }
+
+    /** Decoding directly into the {@link WattpilotStatus} through the {@link StatusDecoder}. */
+    @Benchmark
+    public WattpilotStatus.Builder statusDecoder() {
+        statusDecoder.statusType(FULL_STATUS);
+        statusDecoder.apply(FULL_STATUS, status, properties);
+        return status;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link WattpilotClientListener} queueing all events in a bounded queue and delivering them to the
+ * wrapped listener on an executor, see {@link ListenerOptions}.
+ *
+ * <p>At most one drain task per listener is submitted to the executor at a time, which delivers the
+ * queued events in order until the queue is empty.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class AsyncListener implements WattpilotClientListener {
+    private final Logger logger = LoggerFactory.getLogger(AsyncListener.class);
+
+    private final WattpilotClientListener delegate;
+    private final Executor executor;
+    private final int capacity;
+    private final ListenerOptions.OverflowPolicy overflowPolicy;
+    private final ScheduledExecutorService scheduler;
+    private final long conflationInterval;
+    private final int flushMask;
+
+    // guarded by queue
+    private final ArrayDeque<Event> queue;
+    private boolean draining = false;
+    private boolean closed = false;
+    private long delivered;
+    private long dropped;
+    private long coalesced;
+    private long lastLag;
+    private long maxLag;
+    private @Nullable StatusEvent pending;
+    private @Nullable ScheduledFuture<?> flushTask;
+    private long lastStatusQueuedAt;
+
+    /**
+     * Create a new asynchronous listener.
+     *
+     * @param delegate the listener to deliver the events to
+     * @param options the dispatch options
+     * @param scheduler the scheduler to flush conflated status events with
+     */
+    AsyncListener(
+            WattpilotClientListener delegate,
+            ListenerOptions options,
+            ScheduledExecutorService scheduler) {
+        this.delegate = delegate;
+        this.executor = options.getExecutor();
+        this.capacity = options.getQueueCapacity();
+        this.overflowPolicy = options.getOverflowPolicy();
+        this.scheduler = scheduler;
+        this.conflationInterval = options.getConflationInterval().toNanos();
+        this.flushMask = options.getFlushMask();
+        this.queue = new ArrayDeque<>(capacity);
+        this.lastStatusQueuedAt = System.nanoTime() - conflationInterval;
+    }
+
+    @Override
+    public void connected(WattpilotInfo info) {
+        synchronized (queue) {
+            flushPending();
+            enqueue(new Event(null, () -> delegate.connected(info)));
+        }
+    }
+
+    @Override
+    public void disconnected(String reason, @Nullable Throwable cause) {
+        synchronized (queue) {
+            flushPending();
+            enqueue(new Event(null, () -> delegate.disconnected(reason, cause)));
+        }
+    }
+
+    @Override
+    public void statusChanged(StatusEvent event) {
+        if (conflationInterval == 0) {
+            enqueue(new Event(event, null));
+            return;
+        }
+        synchronized (queue) {
+            StatusEvent pending = this.pending;
+            this.pending = pending == null ? event : pending.merge(event);
+            long wait = lastStatusQueuedAt + conflationInterval - System.nanoTime();
+            if ((event.changedMask() & flushMask) != 0 || wait <= 0) {
+                flushPending();
+            } else if (flushTask == null && !closed) {
+                flushTask = scheduler.schedule(this::onFlushTimer, wait, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Get a snapshot of the dispatch metrics.
+     *
+     * @return the metrics
+     */
+    ListenerMetrics metrics() {
+        synchronized (queue) {
+            return new ListenerMetrics(
+                    queue.size(),
+                    delivered,
+                    dropped,
+                    coalesced,
+                    Duration.ofNanos(lastLag),
+                    Duration.ofNanos(maxLag));
+        }
+    }
+
+    /** Discard all queued events and stop accepting new ones. */
+    void close() {
+        synchronized (queue) {
+            closed = true;
+            pending = null;
+            ScheduledFuture<?> flushTask = this.flushTask;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                this.flushTask = null;
+            }
+            queue.clear();
+            queue.notifyAll();
+        }
+    }
+
+    private void onFlushTimer() {
+        synchronized (queue) {
+            flushTask = null;
+            flushPending();
+        }
+    }
+
+    /**
+     * Queue the pending conflated status event, if any. Must be called with the queue lock held.
+     */
+    private void flushPending() {
+        ScheduledFuture<?> flushTask = this.flushTask;
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            this.flushTask = null;
+        }
+        StatusEvent pending = this.pending;
+        if (pending != null) {
+            this.pending = null;
+            lastStatusQueuedAt = System.nanoTime();
+            enqueue(new Event(pending, null));
+        }
+    }
+
+    private void enqueue(Event event) {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= capacity && !makeRoom(event)) {
+                return;
+            }
+            queue.add(event);
+            if (!draining) {
+                draining = true;
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining = false;
+                    logger.warn("Executor rejected delivery of events to listener {}", delegate, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the overflow policy to the full queue. Must be called with the queue lock held.
+     *
+     * @return whether the event still has to be added to the queue
+     */
+    private boolean makeRoom(Event event) {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                while (queue.size() >= capacity && !closed) {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        return false;
+                    }
+                }
+                return !closed;
+            }
+            case COALESCE_LATEST_STATUS -> {
+                // the queue is full, so there is a last event
+                Event last = queue.getLast();
+                StatusEvent lastStatus = last.status;
+                StatusEvent status = event.status;
+                if (lastStatus != null && status != null) {
+                    last.status = lastStatus.merge(status);
+                    coalesced++;
+                    return false;
+                }
+                queue.poll();
+                dropped++;
+                return true;
+            }
+            default -> {
+                queue.poll();
+                dropped++;
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Event event;
+            synchronized (queue) {
+                if (queue.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                event = queue.poll();
+                queue.notifyAll();
+                long lag = System.nanoTime() - event.enqueuedAt;
+                lastLag = lag;
+                maxLag = Math.max(maxLag, lag);
+                delivered++;
+            }
+            try {
+                StatusEvent status = event.status;
+                Runnable action = event.action;
+                if (status != null) {
+                    delegate.statusChanged(status);
+                } else if (action != null) {
+                    action.run();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Listener {} failed to handle event", delegate, e);
+            }
+        }
+    }
+
+    private static final class Event {
+        private final long enqueuedAt = System.nanoTime();
+        private @Nullable StatusEvent status;
+        private final @Nullable Runnable action;
+
+        private Event(@Nullable StatusEvent status, @Nullable Runnable action) {
+            this.status = status;
+            this.action = action;
+        }
+    }
+}
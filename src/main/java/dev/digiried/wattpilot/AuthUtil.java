@@ -24,17 +24,14 @@ import dev.digiried.wattpilot.messages.AuthRequiredMessage;
 
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
 import java.util.Base64;
-import javax.crypto.Mac;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -47,6 +44,8 @@ import org.eclipse.jdt.annotation.Nullable;
  */
 @NonNullByDefault
 final class AuthUtil {
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
     private AuthUtil() {}
 
     enum HashAlgorithm {
@@ -73,6 +72,17 @@ final class AuthUtil {
         }
     }
 
+    /**
+     * Get the hash algorithm used by a device type if the wallbox does not request a specific
+     * algorithm.
+     *
+     * @param deviceType the device type of the wallbox, see {@link WattpilotInfo#deviceType()}
+     * @return the hash algorithm
+     */
+    static HashAlgorithm defaultHashAlgorithm(@Nullable String deviceType) {
+        return "wattpilot_flex".equals(deviceType) ? HashAlgorithm.BCRYPT : HashAlgorithm.PBKDF2;
+    }
+
     /**
      * Hashes the password using the specified algorithm with a custom salt derived from the serial
      *
@@ -97,6 +107,10 @@ final class AuthUtil {
      * string). 2. Generate a salt using "$2a$08$" + encoded serial number. 3. BCrypt hash the
      * SHA-256 hex string using that salt.
      *
+     * <p>The hash is computed by the {@link BCryptEngine} with the raw salt, so the salt does not
+     * have to be encoded, and only the password hash part is encoded. Should the engine fail its
+     * self-check, the hash is computed by {@link BCrypt} instead.
+     *
      * @param serial the serial number of the device (digits only)
      * @param password the password to hash
      * @return the hashed password bytes (password hash part only, no salt prefix)
@@ -104,45 +118,47 @@ final class AuthUtil {
      */
     private static byte[] hashPasswordWithBCrypt(String serial, String password)
             throws NoSuchAlgorithmException {
-        // SHA-256 hash of the password
+        // SHA-256 hash of the password as hex string, terminated by a zero byte for revision 2a
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        String passwordSha256 =
-                bytesToHex(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
-
-        // Prepare Deterministic Salt: $2a$08$ + Encoded Serial
-        String salt = "$2a$08$" + encodeSerialForBCrypt(serial);
-
-        // Hash using jBCrypt and use serial-based salt
-        String fullHash = BCrypt.hashpw(passwordSha256, salt);
-
-        // Extract the password hash part (substring after the salt prefix)
-        String pwHash = fullHash.substring(salt.length());
+        byte[] passwordSha256 = digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        byte[] key = new byte[passwordSha256.length * 2 + 1];
+        for (int i = 0; i < passwordSha256.length; i++) {
+            key[2 * i] = HEX_DIGITS[(passwordSha256[i] >> 4) & 0x0f];
+            key[2 * i + 1] = HEX_DIGITS[passwordSha256[i] & 0x0f];
+        }
 
-        return pwHash.getBytes(StandardCharsets.UTF_8);
+        byte[] salt = serialToSalt(serial);
+        if (!BCryptEngine.isVerified()) {
+            String prefix = "$2a$08$" + BCrypt.encode_base64(salt, salt.length);
+            String passwordHex = new String(key, 0, key.length - 1, StandardCharsets.US_ASCII);
+            return BCrypt.hashpw(passwordHex, prefix)
+                    .substring(prefix.length())
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] hash = BCryptEngine.get().hash(key, salt, 8);
+        return BCryptEngine.encodeBase64(hash, BCryptEngine.HASH_LENGTH);
     }
 
     /**
-     * Encodes the serial number into a BCrypt-compatible salt string.
+     * Converts the serial number into the raw BCrypt salt.
      *
      * @param serial the serial number of the device (expects digits only)
      * @throws IllegalArgumentException if serial contains non-digit characters
      */
-    private static String encodeSerialForBCrypt(String serial) {
+    private static byte[] serialToSalt(String serial) {
         if (!serial.matches("\\d+")) {
             throw new IllegalArgumentException("Serial must be digits only");
         }
 
         // Convert serial digits to a 16-byte array of raw values (0-9)
-        int length = 16;
-        byte[] b = new byte[16];
-        int offset = 16 - serial.length();
+        byte[] b = new byte[BCryptEngine.SALT_LENGTH];
+        int offset = BCryptEngine.SALT_LENGTH - serial.length();
         for (int i = 0; i < serial.length(); i++) {
             if (offset + i >= 0) {
                 b[offset + i] = (byte) (serial.charAt(i) - '0');
             }
         }
-
-        return BCrypt.encode_base64(b, length);
+        return b;
     }
 
     /**
@@ -208,27 +224,6 @@ final class AuthUtil {
         return new AuthMessage(token3, hash);
     }
 
-    /**
-     * Creates a HMAC from the hashed password and the data to send.
-     *
-     * @param hashedPassword the hashed password, see {@link #hashPassword(String, String,
-     *     HashAlgorithm)}
-     * @param data the data to send
-     * @return the HMAC as a hex string
-     * @throws NoSuchAlgorithmException ir HMAC-SHA256 algorithm is not available
-     */
-    static String createHmac(byte[] hashedPassword, String data) throws NoSuchAlgorithmException {
-        SecretKeySpec keySpec = new SecretKeySpec(hashedPassword, "HmacSHA256");
-        Mac mac = Mac.getInstance("HmacSHA256");
-        try {
-            mac.init(keySpec);
-        } catch (InvalidKeyException e) {
-            throw new RuntimeException(e); // NOSONAR: this should never happen
-        }
-        byte[] hmacBytes = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return bytesToHex(hmacBytes);
-    }
-
     /**
      * Converts a byte array to a hex string.
      *
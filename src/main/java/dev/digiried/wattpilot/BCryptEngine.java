@@ -0,0 +1,384 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Optimised implementation of the bcrypt password hash, deriving the same hashes as {@link
+ * BCrypt#hashpw(String, String)}, but operating on bytes instead of strings.
+ *
+ * <p>Compared to {@link BCrypt}, the engine
+ *
+ * <ul>
+ *   <li>reuses its key schedule buffers, which are copied from the initial Blowfish state instead
+ *       of cloned for every hash,
+ *   <li>expands the password and the salt into key words once instead of extracting the key
+ *       material byte by byte for every key schedule,
+ *   <li>keeps the Blowfish block in local variables instead of an array and
+ *   <li>takes the raw salt, so the salt does not have to be encoded and decoded.
+ * </ul>
+ *
+ * <p>An engine is not thread-safe, use {@link #get()} to get the engine of the current thread.
+ *
+ * <p>Before its first use, the engine is checked against a known answer and against {@link
+ * BCrypt#hashpw(String, String)} for several passwords, salts and costs, see {@link #isVerified()}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class BCryptEngine {
+    /** The length of the raw salt in bytes. */
+    static final int SALT_LENGTH = 16;
+
+    /** The length of the raw hash in bytes, as used by the encoded hash. */
+    static final int HASH_LENGTH = 23;
+
+    private static final int ROUNDS = 16;
+    private static final int P_LENGTH = ROUNDS + 2;
+    private static final int BOX_LENGTH = 256;
+
+    // "OrpheanBeholderScryDoubt", the plaintext encrypted by bcrypt
+    private static final int[] CIPHERTEXT = {
+        0x4f727068, 0x65616e42, 0x65686f6c, 0x64657253, 0x63727944, 0x6f756274
+    };
+
+    private static final byte[] BASE64_CODE =
+            "./ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<BCryptEngine> ENGINES =
+            ThreadLocal.withInitial(BCryptEngine::new);
+
+    // known answer of jBCrypt for the empty password, checking the vendored BCrypt itself
+    private static final String KNOWN_SALT = "$2a$06$DCq7YPn5Rq63x1Lad4cll.";
+    private static final String KNOWN_HASH =
+            "$2a$06$DCq7YPn5Rq63x1Lad4cll.TV4S6ytwfsfvkgY8jIucDrjc8deX1s.";
+
+    // passwords and costs compared to the vendored BCrypt, covering an empty password, non-ASCII
+    // characters, a password exceeding the 72 bytes used by bcrypt and an authentication password;
+    // the cost only sets the number of key schedules, so low costs keep the check cheap
+    private static final String[] CHECK_PASSWORDS = {
+        "",
+        "\u00e9t\u00e9 \u00fcber \u20ac",
+        "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789abcdefghijklmnop",
+        "5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8"
+    };
+    private static final int[] CHECK_COSTS = {4, 4, 5, 6};
+
+    private final int[] p = new int[P_LENGTH];
+    // the four S-boxes, kept in arrays of their own so their indices need no offset
+    private final int[] s0 = new int[BOX_LENGTH];
+    private final int[] s1 = new int[BOX_LENGTH];
+    private final int[] s2 = new int[BOX_LENGTH];
+    private final int[] s3 = new int[BOX_LENGTH];
+    private final int[] passwordWords = new int[P_LENGTH];
+    private final int[] saltWords = new int[P_LENGTH];
+    private final int[] block = new int[CIPHERTEXT.length];
+
+    private BCryptEngine() {}
+
+    /**
+     * Get the engine of the current thread.
+     *
+     * @return the engine
+     */
+    static BCryptEngine get() {
+        return ENGINES.get();
+    }
+
+    /**
+     * Check whether the engine derives the same hashes as {@link BCrypt#hashpw(String, String)}.
+     * The check runs once, on the first call.
+     *
+     * @return <code>true</code> if the engine may be used, <code>false</code> if hashes have to be
+     *     derived by {@link BCrypt}
+     */
+    static boolean isVerified() {
+        return Verification.VERIFIED;
+    }
+
+    /**
+     * Hash a password with the bcrypt scheme.
+     *
+     * @param password the password, including the terminating zero byte for the <code>2a</code>
+     *     revision
+     * @param salt the raw salt of {@link #SALT_LENGTH} bytes
+     * @param logRounds the binary logarithm of the number of rounds, between 4 and 30
+     * @return the raw hash of {@link #HASH_LENGTH} bytes
+     * @throws IllegalArgumentException if the password is empty, the salt has an invalid length or
+     *     the number of rounds is out of range
+     */
+    byte[] hash(byte[] password, byte[] salt, int logRounds) {
+        if (logRounds < 4 || logRounds > 30) {
+            throw new IllegalArgumentException("Bad number of rounds");
+        }
+        if (salt.length != SALT_LENGTH) {
+            throw new IllegalArgumentException("Bad salt length");
+        }
+        if (password.length == 0) {
+            throw new IllegalArgumentException("Empty password");
+        }
+        expand(password, passwordWords);
+        expand(salt, saltWords);
+
+        System.arraycopy(BCrypt.P_orig, 0, p, 0, P_LENGTH);
+        System.arraycopy(BCrypt.S_orig, 0, s0, 0, BOX_LENGTH);
+        System.arraycopy(BCrypt.S_orig, BOX_LENGTH, s1, 0, BOX_LENGTH);
+        System.arraycopy(BCrypt.S_orig, 2 * BOX_LENGTH, s2, 0, BOX_LENGTH);
+        System.arraycopy(BCrypt.S_orig, 3 * BOX_LENGTH, s3, 0, BOX_LENGTH);
+        eksKey();
+        int rounds = 1 << logRounds;
+        for (int i = 0; i != rounds; i++) {
+            key(passwordWords);
+            key(saltWords);
+        }
+
+        int[] block = this.block;
+        System.arraycopy(CIPHERTEXT, 0, block, 0, block.length);
+        for (int i = 0; i < 64; i++) {
+            for (int j = 0; j < block.length; j += 2) {
+                long lr = encipher(block[j], block[j + 1]);
+                block[j] = (int) (lr >>> 32);
+                block[j + 1] = (int) lr;
+            }
+        }
+
+        byte[] hash = new byte[HASH_LENGTH];
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            hash[i] = (byte) (block[i >> 2] >>> (24 - ((i & 3) << 3)));
+        }
+        return hash;
+    }
+
+    /**
+     * Compare the engine to the known answer and to {@link BCrypt#hashpw(String, String)}, using
+     * salts with both low and high byte values.
+     */
+    private static boolean verify() {
+        String known = BCrypt.hashpw("", KNOWN_SALT);
+        if (!KNOWN_HASH.equals(known)) {
+            return fail("BCrypt derived " + known + " instead of " + KNOWN_HASH);
+        }
+        BCryptEngine engine = new BCryptEngine();
+        byte[] salt = new byte[SALT_LENGTH];
+        for (int i = 0; i < CHECK_PASSWORDS.length; i++) {
+            for (int j = 0; j < SALT_LENGTH; j++) {
+                salt[j] = (byte) (i * 101 + j * 37 + 0x5a);
+            }
+            String password = CHECK_PASSWORDS[i];
+            int cost = CHECK_COSTS[i];
+            String prefix =
+                    String.format("$2a$%02d$", cost) + BCrypt.encode_base64(salt, SALT_LENGTH);
+            String expected = BCrypt.hashpw(password, prefix).substring(prefix.length());
+            byte[] key = (password + "\0").getBytes(StandardCharsets.UTF_8);
+            String actual =
+                    new String(
+                            encodeBase64(engine.hash(key, salt, cost), HASH_LENGTH),
+                            StandardCharsets.US_ASCII);
+            if (!expected.equals(actual)) {
+                return fail(
+                        "Engine derived " + actual + " instead of " + expected + " for " + prefix);
+            }
+        }
+        return true;
+    }
+
+    private static boolean fail(String message) {
+        LoggerFactory.getLogger(BCryptEngine.class)
+                .error("BCrypt self-check failed, falling back to BCrypt: {}", message);
+        return false;
+    }
+
+    /**
+     * Encode bytes using the base64 variant of bcrypt, which is not compatible with MIME base64.
+     *
+     * @param data the bytes to encode
+     * @param length the number of bytes to encode
+     * @return the encoded bytes
+     */
+    static byte[] encodeBase64(byte[] data, int length) {
+        byte[] encoded = new byte[(length * 4 + 2) / 3];
+        int off = 0;
+        int pos = 0;
+        while (off < length) {
+            int c1 = data[off++] & 0xff;
+            encoded[pos++] = BASE64_CODE[(c1 >> 2) & 0x3f];
+            c1 = (c1 & 0x03) << 4;
+            if (off >= length) {
+                encoded[pos++] = BASE64_CODE[c1];
+                break;
+            }
+            int c2 = data[off++] & 0xff;
+            encoded[pos++] = BASE64_CODE[c1 | (c2 >> 4)];
+            c1 = (c2 & 0x0f) << 2;
+            if (off >= length) {
+                encoded[pos++] = BASE64_CODE[c1];
+                break;
+            }
+            c2 = data[off++] & 0xff;
+            encoded[pos++] = BASE64_CODE[c1 | (c2 >> 6)];
+            encoded[pos++] = BASE64_CODE[c2 & 0x3f];
+        }
+        return encoded;
+    }
+
+    /**
+     * Expand key material into the words XORed into the P-array, cycling through the key material
+     * as bcrypt does. As each key schedule starts at the beginning of the key material, the words
+     * are the same for every key schedule.
+     */
+    private static void expand(byte[] data, int[] words) {
+        int off = 0;
+        for (int i = 0; i < words.length; i++) {
+            int word = 0;
+            for (int j = 0; j < 4; j++) {
+                word = (word << 8) | (data[off] & 0xff);
+                off = off + 1 == data.length ? 0 : off + 1;
+            }
+            words[i] = word;
+        }
+    }
+
+    /**
+     * The expensive key schedule of bcrypt, keying the cipher with the password and mixing in the
+     * salt. The salt of 16 bytes repeats every 4 words, and every block consumes two words of it.
+     */
+    private void eksKey() {
+        int[] p = this.p;
+        int[] saltWords = this.saltWords;
+        for (int i = 0; i < P_LENGTH; i++) {
+            p[i] ^= passwordWords[i];
+        }
+        long lr = 0;
+        int salt = 0;
+        for (int i = 0; i < P_LENGTH; i += 2) {
+            lr = encipher((int) (lr >>> 32) ^ saltWords[salt], (int) lr ^ saltWords[salt + 1]);
+            salt ^= 2;
+            p[i] = (int) (lr >>> 32);
+            p[i + 1] = (int) lr;
+        }
+        for (int[] box : new int[][] {s0, s1, s2, s3}) {
+            for (int i = 0; i < BOX_LENGTH; i += 2) {
+                lr = encipher((int) (lr >>> 32) ^ saltWords[salt], (int) lr ^ saltWords[salt + 1]);
+                salt ^= 2;
+                box[i] = (int) (lr >>> 32);
+                box[i + 1] = (int) lr;
+            }
+        }
+    }
+
+    /** The standard Blowfish key schedule with the given key words. */
+    private void key(int[] keyWords) {
+        int[] p = this.p;
+        for (int i = 0; i < P_LENGTH; i++) {
+            p[i] ^= keyWords[i];
+        }
+        long lr = 0;
+        for (int i = 0; i < P_LENGTH; i += 2) {
+            lr = encipher((int) (lr >>> 32), (int) lr);
+            p[i] = (int) (lr >>> 32);
+            p[i + 1] = (int) lr;
+        }
+        lr = fill(s0, lr);
+        lr = fill(s1, lr);
+        lr = fill(s2, lr);
+        fill(s3, lr);
+    }
+
+    /**
+     * Fill an S-box with the chained encipherment of the given block, which takes 512 of the 521
+     * encipherments of a key schedule. As the P-array does not change while filling the S-boxes, it
+     * is held in local variables and the rounds are unrolled.
+     *
+     * @return the last enciphered block
+     */
+    private long fill(int[] box, long lr) {
+        int[] s0 = this.s0;
+        int[] s1 = this.s1;
+        int[] s2 = this.s2;
+        int[] s3 = this.s3;
+        int[] p = this.p;
+        int p0 = p[0], p1 = p[1], p2 = p[2], p3 = p[3], p4 = p[4], p5 = p[5];
+        int p6 = p[6], p7 = p[7], p8 = p[8], p9 = p[9], p10 = p[10], p11 = p[11];
+        int p12 = p[12], p13 = p[13], p14 = p[14], p15 = p[15], p16 = p[16], p17 = p[17];
+        int l = (int) (lr >>> 32);
+        int r = (int) lr;
+        for (int i = 0; i < BOX_LENGTH; i += 2) {
+            l ^= p0;
+            r ^= f(s0, s1, s2, s3, l) ^ p1;
+            l ^= f(s0, s1, s2, s3, r) ^ p2;
+            r ^= f(s0, s1, s2, s3, l) ^ p3;
+            l ^= f(s0, s1, s2, s3, r) ^ p4;
+            r ^= f(s0, s1, s2, s3, l) ^ p5;
+            l ^= f(s0, s1, s2, s3, r) ^ p6;
+            r ^= f(s0, s1, s2, s3, l) ^ p7;
+            l ^= f(s0, s1, s2, s3, r) ^ p8;
+            r ^= f(s0, s1, s2, s3, l) ^ p9;
+            l ^= f(s0, s1, s2, s3, r) ^ p10;
+            r ^= f(s0, s1, s2, s3, l) ^ p11;
+            l ^= f(s0, s1, s2, s3, r) ^ p12;
+            r ^= f(s0, s1, s2, s3, l) ^ p13;
+            l ^= f(s0, s1, s2, s3, r) ^ p14;
+            r ^= f(s0, s1, s2, s3, l) ^ p15;
+            l ^= f(s0, s1, s2, s3, r) ^ p16;
+            // swap the halves for the next block
+            int t = r ^ p17;
+            r = l;
+            l = t;
+            box[i] = l;
+            box[i + 1] = r;
+        }
+        return ((long) l << 32) | (r & 0xffffffffL);
+    }
+
+    /**
+     * Encipher a 64-bit block with Blowfish.
+     *
+     * @return the enciphered block, with the left half in the upper 32 bits
+     */
+    private long encipher(int l, int r) {
+        int[] p = this.p;
+        int[] s0 = this.s0;
+        int[] s1 = this.s1;
+        int[] s2 = this.s2;
+        int[] s3 = this.s3;
+        l ^= p[0];
+        for (int i = 1; i < ROUNDS; i += 2) {
+            r ^= f(s0, s1, s2, s3, l) ^ p[i];
+            l ^= f(s0, s1, s2, s3, r) ^ p[i + 1];
+        }
+        r ^= p[ROUNDS + 1];
+        return ((long) r << 32) | (l & 0xffffffffL);
+    }
+
+    /** The Blowfish round function. */
+    private static int f(int[] s0, int[] s1, int[] s2, int[] s3, int x) {
+        return ((s0[x >>> 24] + s1[(x >>> 16) & 0xff]) ^ s2[(x >>> 8) & 0xff]) + s3[x & 0xff];
+    }
+
+    /** Holder running the check of {@link #isVerified()} lazily and once. */
+    private static final class Verification {
+        static final boolean VERIFIED = verify();
+    }
+}
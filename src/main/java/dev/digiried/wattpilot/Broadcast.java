@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.commands.Command;
+import dev.digiried.wattpilot.commands.CommandResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A running broadcast of commands to several wallboxes, which keeps at most a given number of
+ * commands in flight and sends the next command as soon as one completes.
+ *
+ * <p>Sending is trampolined: commands failing synchronously, e.g. because a client is not
+ * connected, do not recurse into sending the next command, so the stack depth does not grow with
+ * the number of wallboxes.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class Broadcast {
+    private final Iterator<Map.Entry<WattpilotClient, Command>> pending;
+    private final int maxInFlight;
+    private final int total;
+    private final CompletableFuture<BroadcastResult> future = new CompletableFuture<>();
+
+    // guarded by this
+    private final Map<WattpilotClient, DeviceCommandResult> results;
+    private int inFlight;
+    private boolean sending;
+
+    /**
+     * Create a new broadcast.
+     *
+     * @param commands the command to send per client
+     * @param maxInFlight the maximum number of commands awaiting their response at the same time
+     */
+    Broadcast(Map<WattpilotClient, Command> commands, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        Map<WattpilotClient, Command> copy = new LinkedHashMap<>(commands);
+        this.pending = copy.entrySet().iterator();
+        this.maxInFlight = maxInFlight;
+        this.total = copy.size();
+        this.results = new LinkedHashMap<>(total * 2);
+    }
+
+    /**
+     * Start sending the commands.
+     *
+     * @return future that completes once all commands completed
+     */
+    CompletableFuture<BroadcastResult> start() {
+        if (total == 0) {
+            future.complete(new BroadcastResult(Collections.emptyMap()));
+        } else {
+            sendAvailable();
+        }
+        return future;
+    }
+
+    private void sendAvailable() {
+        synchronized (this) {
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+        while (true) {
+            Map.Entry<WattpilotClient, Command> entry;
+            synchronized (this) {
+                if (inFlight >= maxInFlight || !pending.hasNext()) {
+                    sending = false;
+                    return;
+                }
+                entry = pending.next();
+                inFlight++;
+            }
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void send(WattpilotClient client, Command command) {
+        long start = System.nanoTime();
+        CompletableFuture<CommandResponse> response;
+        try {
+            response = client.sendCommand(command);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete(
+                (result, failure) ->
+                        onCompleted(
+                                client,
+                                new DeviceCommandResult(
+                                        result,
+                                        unwrap(failure),
+                                        Duration.ofNanos(System.nanoTime() - start))));
+    }
+
+    private void onCompleted(WattpilotClient client, DeviceCommandResult result) {
+        boolean done;
+        synchronized (this) {
+            results.put(client, result);
+            inFlight--;
+            done = results.size() == total;
+        }
+        if (done) {
+            future.complete(new BroadcastResult(Collections.unmodifiableMap(results)));
+        } else {
+            sendAvailable();
+        }
+    }
+
+    private static @Nullable Throwable unwrap(@Nullable Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            return failure.getCause();
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Aggregate result of broadcasting commands to several wallboxes, see {@link
+ * WattpilotFleet#broadcast(java.util.Map, int)}.
+ *
+ * @param results the result per client
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record BroadcastResult(Map<WattpilotClient, DeviceCommandResult> results) {
+    /**
+     * Whether the command was successful on all wallboxes.
+     *
+     * @return whether all commands were successful
+     */
+    public boolean isSuccess() {
+        for (DeviceCommandResult result : results.values()) {
+            if (!result.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the clients of the wallboxes the command was successful on.
+     *
+     * @return the successful clients
+     */
+    public List<WattpilotClient> succeeded() {
+        List<WattpilotClient> clients = new ArrayList<>();
+        results.forEach(
+                (client, result) -> {
+                    if (result.isSuccess()) {
+                        clients.add(client);
+                    }
+                });
+        return clients;
+    }
+
+    /**
+     * Get the clients of the wallboxes the command failed on.
+     *
+     * @return the failed clients
+     */
+    public List<WattpilotClient> failed() {
+        List<WattpilotClient> clients = new ArrayList<>();
+        results.forEach(
+                (client, result) -> {
+                    if (!result.isSuccess()) {
+                        clients.add(client);
+                    }
+                });
+        return clients;
+    }
+
+    /**
+     * Get the maximum latency of all commands.
+     *
+     * @return the maximum latency
+     */
+    public Duration maxLatency() {
+        Duration max = Duration.ZERO;
+        for (DeviceCommandResult result : results.values()) {
+            if (result.latency().compareTo(max) > 0) {
+                max = result.latency();
+            }
+        }
+        return max;
+    }
+}
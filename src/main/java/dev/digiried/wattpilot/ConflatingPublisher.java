@@ -0,0 +1,209 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Flow;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Flow.Publisher} that never buffers more than one item per subscriber: items published
+ * while a subscriber has no outstanding demand are merged into a single pending item, which is
+ * delivered as soon as the subscriber requests more.
+ *
+ * <p>Items are delivered synchronously, either on the thread publishing the item or on the thread
+ * requesting it. Signals to a subscriber never overlap, even if it requests more items from within
+ * {@link Flow.Subscriber#onNext(Object)}.
+ *
+ * @param <T> the type of the items
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class ConflatingPublisher<T> implements Flow.Publisher<T> {
+    private final Logger logger = LoggerFactory.getLogger(ConflatingPublisher.class);
+
+    private final BinaryOperator<T> merge;
+    private final Supplier<@Nullable T> initial;
+    private final Set<ConflatingSubscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    /**
+     * Create a new publisher.
+     *
+     * @param merge merges a pending item with a newer item
+     * @param initial supplies the item new subscribers start with, or <code>null</code> if they
+     *     should only receive the items published after subscribing
+     */
+    ConflatingPublisher(BinaryOperator<T> merge, Supplier<@Nullable T> initial) {
+        this.merge = merge;
+        this.initial = initial;
+    }
+
+    @NonNullByDefault({})
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        ConflatingSubscription subscription = new ConflatingSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        @Nullable T item = initial.get();
+        if (item != null) {
+            subscription.offerInitial(item);
+        }
+    }
+
+    /**
+     * Publish an item to all subscribers.
+     *
+     * @param item the item
+     */
+    void publish(T item) {
+        for (ConflatingSubscription subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    private final class ConflatingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+
+        // guarded by this
+        private @Nullable T pending;
+        private @Nullable Throwable error;
+        private long demand;
+        private boolean delivering;
+        private boolean cancelled;
+
+        private ConflatingSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(T item) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                @Nullable T pending = this.pending;
+                this.pending = pending == null ? item : merge.apply(pending, item);
+            }
+            drain();
+        }
+
+        /** Offer the initial item, unless a newer item has already been published. */
+        private void offerInitial(T item) {
+            synchronized (this) {
+                if (cancelled || pending != null) {
+                    return;
+                }
+                pending = item;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    // delivered by drain(), so it does not overlap an item being delivered
+                    error = new IllegalArgumentException("Requested non-positive number of items");
+                }
+                cancel();
+                drain();
+                return;
+            }
+            synchronized (this) {
+                demand += n;
+                if (demand < 0) { // overflow, i.e. unbounded demand
+                    demand = Long.MAX_VALUE;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                pending = null;
+            }
+            subscriptions.remove(this);
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (delivering) {
+                    return;
+                }
+                delivering = true;
+            }
+            while (true) {
+                @Nullable Throwable error;
+                synchronized (this) {
+                    error = this.error;
+                    this.error = null;
+                }
+                if (error != null) {
+                    try {
+                        subscriber.onError(error);
+                    } finally {
+                        synchronized (this) {
+                            delivering = false;
+                        }
+                    }
+                    return;
+                }
+                @Nullable T item;
+                synchronized (this) {
+                    if (this.error != null) {
+                        continue;
+                    }
+                    item = pending;
+                    if (cancelled || demand == 0 || item == null) {
+                        delivering = false;
+                        return;
+                    }
+                    pending = null;
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                }
+                try {
+                    subscriber.onNext(item);
+                } catch (RuntimeException e) {
+                    logger.warn("Subscriber {} failed to handle item, cancelling", subscriber, e);
+                    cancel();
+                    synchronized (this) {
+                        delivering = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
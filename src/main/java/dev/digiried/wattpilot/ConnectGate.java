@@ -0,0 +1,207 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Admission control for connection attempts, which spreads connection storms, e.g. after a network
+ * outage, over time and limits how many connection attempts run at once.
+ *
+ * <p>Each connection attempt first waits for a random jitter, then queues for one of a limited
+ * number of permits. A permit is held until the attempt completed, i.e. during the WebSocket
+ * handshake, the key derivation and the authentication, but at most for {@link #PERMIT_TIMEOUT}, so
+ * a wallbox that never answers does not block the gate. Queued attempts with a higher priority are
+ * admitted first, attempts of the same priority in the order they were queued.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class ConnectGate {
+    /** The maximum time a connection attempt holds its permit. */
+    static final Duration PERMIT_TIMEOUT = Duration.ofSeconds(30);
+
+    /** A gate admitting all connection attempts immediately. */
+    static ConnectGate unlimited(ScheduledExecutorService scheduler) {
+        return new ConnectGate(Integer.MAX_VALUE, Duration.ZERO, scheduler);
+    }
+
+    private final int maxConcurrent;
+    private final long maxJitter;
+    private final ScheduledExecutorService scheduler;
+
+    // guarded by this
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private int running;
+    private long sequence;
+    private boolean admitting;
+
+    /**
+     * Create a new gate.
+     *
+     * @param maxConcurrent the maximum number of connection attempts running at once
+     * @param maxJitter the maximum random delay before a connection attempt is queued
+     * @param scheduler the scheduler to delay the attempts with
+     */
+    ConnectGate(int maxConcurrent, Duration maxJitter, ScheduledExecutorService scheduler) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxJitter = maxJitter.toNanos();
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Submit a connection attempt.
+     *
+     * @param priority the priority of the attempt, higher priorities are admitted first
+     * @param attempt starts the connection attempt once admitted
+     * @return future that completes like the future returned by the attempt
+     */
+    CompletableFuture<@Nullable Void> submit(
+            int priority, Supplier<CompletableFuture<@Nullable Void>> attempt) {
+        Ticket ticket = new Ticket(priority, attempt);
+        if (maxJitter > 0) {
+            long jitter = ThreadLocalRandom.current().nextLong(maxJitter);
+            scheduler.schedule(() -> enqueue(ticket), jitter, TimeUnit.NANOSECONDS);
+        } else {
+            enqueue(ticket);
+        }
+        return ticket.result;
+    }
+
+    /**
+     * Get the number of connection attempts waiting for admission, not including attempts still
+     * waiting for their jitter.
+     *
+     * @return the number of queued attempts
+     */
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    private void enqueue(Ticket ticket) {
+        synchronized (this) {
+            ticket.sequence = sequence++;
+            queue.add(ticket);
+        }
+        admit();
+    }
+
+    /**
+     * Start queued attempts while permits are available. Trampolined, so attempts completing
+     * synchronously do not recurse into admitting the next attempt.
+     */
+    private void admit() {
+        synchronized (this) {
+            if (admitting) {
+                return;
+            }
+            admitting = true;
+        }
+        while (true) {
+            Ticket ticket;
+            synchronized (this) {
+                if (running >= maxConcurrent || queue.isEmpty()) {
+                    admitting = false;
+                    return;
+                }
+                ticket = queue.poll();
+                running++;
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release =
+                    () -> {
+                        if (released.compareAndSet(false, true)) {
+                            release();
+                        }
+                    };
+            ScheduledFuture<?> timeout =
+                    maxConcurrent == Integer.MAX_VALUE
+                            ? null
+                            : scheduler.schedule(
+                                    release, PERMIT_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+            ticket.start(
+                    () -> {
+                        if (timeout != null) {
+                            timeout.cancel(false);
+                        }
+                        release.run();
+                    });
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+        }
+        admit();
+    }
+
+    private static final class Ticket implements Comparable<Ticket> {
+        private final int priority;
+        private final Supplier<CompletableFuture<@Nullable Void>> attempt;
+        private final CompletableFuture<@Nullable Void> result = new CompletableFuture<>();
+        private long sequence;
+
+        private Ticket(int priority, Supplier<CompletableFuture<@Nullable Void>> attempt) {
+            this.priority = priority;
+            this.attempt = attempt;
+        }
+
+        private void start(Runnable release) {
+            CompletableFuture<@Nullable Void> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete(
+                    (v, t) -> {
+                        release.run();
+                        if (t != null) {
+                            result.completeExceptionally(t);
+                        } else {
+                            result.complete(null);
+                        }
+                    });
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
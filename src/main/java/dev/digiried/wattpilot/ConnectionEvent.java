@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Event describing a change of the connection to the wallbox, see {@link
+ * WattpilotClient#connectionEvents()}.
+ *
+ * @param type whether the client connected or disconnected
+ * @param info the device info, only set if the client connected
+ * @param reason the reason for the disconnection, only set if the client disconnected
+ * @param cause the throwable that caused an ungraceful disconnection, or <code>null</code>
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record ConnectionEvent(
+        Type type,
+        @Nullable WattpilotInfo info,
+        @Nullable String reason,
+        @Nullable Throwable cause) {
+    /** The type of a connection event. */
+    public enum Type {
+        /** The client connected to the wallbox and received the device info. */
+        CONNECTED,
+        /** The client disconnected from the wallbox. */
+        DISCONNECTED
+    }
+
+    /**
+     * Create an event for a successful connection.
+     *
+     * @param info the device info
+     * @return the event
+     */
+    public static ConnectionEvent connected(WattpilotInfo info) {
+        return new ConnectionEvent(Type.CONNECTED, info, null, null);
+    }
+
+    /**
+     * Create an event for a disconnection.
+     *
+     * @param reason the reason for the disconnection
+     * @param cause the throwable that caused an ungraceful disconnection, or <code>null</code>
+     * @return the event
+     */
+    public static ConnectionEvent disconnected(String reason, @Nullable Throwable cause) {
+        return new ConnectionEvent(Type.DISCONNECTED, null, reason, cause);
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for the keys derived from the password of a wallbox, so reconnecting to a wallbox does not
+ * have to repeat the expensive key derivation, see {@link
+ * WattpilotClient#setDerivedKeyCache(DerivedKeyCache)}.
+ *
+ * <p>Keys are cached per serial number, password and hash algorithm, and looked up by an
+ * HMAC-SHA256 of these inputs keyed with a secret local key. Passwords are not stored, and without
+ * the local key the lookup ids can not be used to test password guesses. An in-memory cache uses a
+ * random local key that only lives as long as the cache.
+ *
+ * <p>A persistent cache additionally stores the keys in a file, so they survive restarts of the
+ * application. The file is encrypted with AES-GCM using a random local key, which is stored in a
+ * separate file only readable by its owner. Anyone able to read both files can decrypt the derived
+ * keys, which authenticate to the wallbox just like the password, and can test password guesses
+ * against the lookup ids at HMAC speed instead of at the cost of the key derivation. Both files
+ * must therefore be protected like the password itself.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public final class DerivedKeyCache {
+    /** The default maximum number of keys kept in memory. */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final String KEY_FILE = "key";
+    private static final String CACHE_FILE = "keys.cache";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final String ID_ALGORITHM = "HmacSHA256";
+    private static final byte[] ID_KEY_LABEL =
+            "wattpilot4j derived key cache id".getBytes(StandardCharsets.UTF_8);
+    // version 1 used unkeyed SHA-256 ids
+    private static final int FORMAT_VERSION = 2;
+
+    private static final class Holder {
+        private static final DerivedKeyCache INSTANCE = inMemory(DEFAULT_MAX_ENTRIES);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(DerivedKeyCache.class);
+
+    private final int maxEntries;
+    // guarded by this, in access order
+    private final Map<String, byte[]> keys;
+    private final @Nullable Path file;
+    private final @Nullable SecretKey fileKey;
+    private final SecretKey idKey;
+    private final SecureRandom random = new SecureRandom();
+    // serialises writing the file
+    private final Object storeLock = new Object();
+
+    private DerivedKeyCache(
+            int maxEntries, @Nullable Path file, @Nullable SecretKey fileKey, SecretKey idKey) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.keys = new LinkedHashMap<>(16, 0.75f, true);
+        this.file = file;
+        this.fileKey = fileKey;
+        this.idKey = idKey;
+    }
+
+    /**
+     * Get the in-memory cache shared by all clients not given another cache.
+     *
+     * @return the shared cache
+     */
+    public static DerivedKeyCache shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Create a new cache keeping the keys in memory only.
+     *
+     * @param maxEntries the maximum number of keys, the least recently used keys are evicted first
+     * @return the new cache
+     * @throws IllegalArgumentException if <code>maxEntries</code> is not positive
+     */
+    public static DerivedKeyCache inMemory(int maxEntries) {
+        byte[] idKey = new byte[32];
+        new SecureRandom().nextBytes(idKey);
+        return new DerivedKeyCache(maxEntries, null, null, new SecretKeySpec(idKey, ID_ALGORITHM));
+    }
+
+    /**
+     * Create a new cache storing the keys in the given directory, loading the keys stored by
+     * previous instances. The directory and the local key are created if they do not exist.
+     *
+     * <p>If the stored keys can not be decrypted, e.g. because the local key was replaced, the
+     * cache starts empty.
+     *
+     * @param directory the directory to store the keys and the local key in
+     * @return the new cache
+     * @throws IOException if the directory or the local key could not be created or read
+     */
+    public static DerivedKeyCache persistent(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        SecretKey localKey = loadOrCreateKey(directory.resolve(KEY_FILE));
+        DerivedKeyCache cache =
+                new DerivedKeyCache(
+                        DEFAULT_MAX_ENTRIES,
+                        directory.resolve(CACHE_FILE),
+                        localKey,
+                        deriveIdKey(localKey));
+        cache.load();
+        return cache;
+    }
+
+    /** Remove all keys from the cache, including the stored keys of a persistent cache. */
+    public void clear() {
+        synchronized (this) {
+            keys.clear();
+        }
+        store();
+    }
+
+    /**
+     * Get the cached key derived from the password of a wallbox.
+     *
+     * @param serial the serial number of the wallbox
+     * @param password the password
+     * @param algorithm the hash algorithm
+     * @return the derived key or <code>null</code> if not cached
+     * @throws NoSuchAlgorithmException if the HMAC-SHA256 algorithm is not available
+     */
+    byte @Nullable [] get(String serial, String password, AuthUtil.HashAlgorithm algorithm)
+            throws NoSuchAlgorithmException {
+        String id = id(serial, password, algorithm);
+        synchronized (this) {
+            byte[] key = keys.get(id);
+            return key != null ? key.clone() : null;
+        }
+    }
+
+    /**
+     * Cache the key derived from the password of a wallbox, and store it if the cache is
+     * persistent.
+     *
+     * @param serial the serial number of the wallbox
+     * @param password the password
+     * @param algorithm the hash algorithm
+     * @param key the derived key
+     * @throws NoSuchAlgorithmException if the HMAC-SHA256 algorithm is not available
+     */
+    void put(String serial, String password, AuthUtil.HashAlgorithm algorithm, byte[] key)
+            throws NoSuchAlgorithmException {
+        put(id(serial, password, algorithm), key.clone());
+        store();
+    }
+
+    private synchronized void put(String id, byte[] key) {
+        keys.put(id, key);
+        while (keys.size() > maxEntries) {
+            keys.remove(keys.keySet().iterator().next());
+        }
+    }
+
+    private String id(String serial, String password, AuthUtil.HashAlgorithm algorithm)
+            throws NoSuchAlgorithmException {
+        Mac mac = initMac(idKey);
+        update(mac, serial);
+        update(mac, password);
+        update(mac, algorithm.getIdentifier());
+        return HexFormat.of().formatHex(mac.doFinal());
+    }
+
+    private static void update(Mac mac, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // prefix with the length, so the boundaries between the inputs are unambiguous
+        mac.update((byte) (bytes.length >>> 24));
+        mac.update((byte) (bytes.length >>> 16));
+        mac.update((byte) (bytes.length >>> 8));
+        mac.update((byte) bytes.length);
+        mac.update(bytes);
+    }
+
+    /** Derive the key of the lookup ids from the local key, so neither key is used twice. */
+    private static SecretKey deriveIdKey(SecretKey localKey) throws IOException {
+        try {
+            return new SecretKeySpec(initMac(localKey).doFinal(ID_KEY_LABEL), ID_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Failed to derive id key", e);
+        }
+    }
+
+    private static Mac initMac(SecretKey key) throws NoSuchAlgorithmException {
+        Mac mac = Mac.getInstance(ID_ALGORITHM);
+        try {
+            mac.init(key);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 rejected key", e);
+        }
+        return mac;
+    }
+
+    private static SecretKey loadOrCreateKey(Path keyFile) throws IOException {
+        if (Files.exists(keyFile)) {
+            byte[] key = Files.readAllBytes(keyFile);
+            if (key.length != 32) {
+                throw new IOException("Invalid local key in " + keyFile);
+            }
+            return new SecretKeySpec(key, "AES");
+        }
+        SecretKey key;
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            key = generator.generateKey();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Failed to generate local key", e);
+        }
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(
+                    keyFile,
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(keyFile, key.getEncoded());
+        return key;
+    }
+
+    private void load() {
+        Path file = this.file;
+        SecretKey fileKey = this.fileKey;
+        if (file == null || fileKey == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(file);
+            if (content.length < IV_LENGTH) {
+                throw new IOException("File is truncated");
+            }
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(
+                    Cipher.DECRYPT_MODE,
+                    fileKey,
+                    new GCMParameterSpec(TAG_LENGTH, content, 0, IV_LENGTH));
+            byte[] plain = cipher.doFinal(content, IV_LENGTH, content.length - IV_LENGTH);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                byte[] key = new byte[in.readUnsignedShort()];
+                in.readFully(key);
+                put(id, key);
+            }
+            logger.debug("Loaded {} derived keys from {}", count, file);
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Could not load derived keys from {}, starting empty", file, e);
+            // replace the file, as it may hold ids of an older format
+            store();
+        }
+    }
+
+    private void store() {
+        Path file = this.file;
+        SecretKey fileKey = this.fileKey;
+        if (file == null || fileKey == null) {
+            return;
+        }
+        synchronized (storeLock) {
+            try {
+                ByteArrayOutputStream plain = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(plain);
+                out.writeInt(FORMAT_VERSION);
+                synchronized (this) {
+                    out.writeInt(keys.size());
+                    for (Map.Entry<String, byte[]> entry : keys.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeShort(entry.getValue().length);
+                        out.write(entry.getValue());
+                    }
+                }
+                byte[] iv = new byte[IV_LENGTH];
+                random.nextBytes(iv);
+                Cipher cipher = Cipher.getInstance(CIPHER);
+                cipher.init(Cipher.ENCRYPT_MODE, fileKey, new GCMParameterSpec(TAG_LENGTH, iv));
+                byte[] encrypted = cipher.doFinal(plain.toByteArray());
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (var stream = Files.newOutputStream(temp)) {
+                    stream.write(iv);
+                    stream.write(encrypted);
+                }
+                try {
+                    Files.move(
+                            temp,
+                            file,
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | GeneralSecurityException e) {
+                logger.warn("Could not store derived keys in {}", file, e);
+            }
+        }
+    }
+}
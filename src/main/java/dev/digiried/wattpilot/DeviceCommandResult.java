@@ -0,0 +1,51 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.commands.CommandResponse;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Result of sending a command to a single wallbox as part of a broadcast, see {@link
+ * WattpilotFleet#broadcast(java.util.Map, int)}.
+ *
+ * @param response the response of the wallbox, or <code>null</code> if the command failed
+ * @param failure the reason the command could not be sent or was not answered, or <code>null
+ *     </code> if a response was received
+ * @param latency the time between sending the command and receiving the response or failure
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record DeviceCommandResult(
+        @Nullable CommandResponse response, @Nullable Throwable failure, Duration latency) {
+    /**
+     * Whether the wallbox received the command and reported success.
+     *
+     * @return whether the command was successful
+     */
+    public boolean isSuccess() {
+        CommandResponse response = this.response;
+        return response != null && response.success();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.ChargingState;
+import dev.digiried.wattpilot.dto.DetailedChargingMetrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Aggregates and secondary indexes over the last known status of the clients of a {@link
+ * WattpilotFleet}, maintained incrementally from the status events of the clients.
+ *
+ * <p>For each client, the index remembers what the client contributed to the aggregates, so an
+ * update only subtracts the old and adds the new contribution, and reading the aggregates does not
+ * depend on the size of the fleet. Powers are summed in milliwatts as integers, so repeated updates
+ * do not accumulate rounding errors.
+ *
+ * <p>Only members of the index are updated, so a status event that is dispatched while the client
+ * is removed cannot add the client again.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class FleetIndex {
+    private static final int RELEVANT_FIELDS =
+            StatusField.CHARGING_METRICS.getMask()
+                    | StatusField.CHARGING_STATE.getMask()
+                    | StatusField.CHARGING_CURRENT.getMask()
+                    | StatusField.ENERGY_COUNTER_TOTAL.getMask();
+
+    private final Set<WattpilotClient> members = new HashSet<>();
+    private final Map<WattpilotClient, Entry> entries = new HashMap<>();
+    private final Map<ChargingState, Set<WattpilotClient>> byChargingState =
+            new EnumMap<>(ChargingState.class);
+    private final NavigableMap<Integer, Set<WattpilotClient>> byChargingCurrent = new TreeMap<>();
+    private long power;
+    private long power1;
+    private long power2;
+    private long power3;
+    private long energyCounterTotal;
+
+    /**
+     * Add a client as member and create a listener updating the index from its status events.
+     *
+     * @param client the client
+     * @return the listener
+     */
+    synchronized WattpilotClientListener add(WattpilotClient client) {
+        members.add(client);
+        return new WattpilotClientListener() {
+            @Override
+            public void disconnected(String reason, @Nullable Throwable cause) {}
+
+            @Override
+            public void statusChanged(StatusEvent event) {
+                update(client, event.status(), event.changedMask());
+            }
+        };
+    }
+
+    /**
+     * Update the contribution of a client. Updates of clients that are not members are ignored.
+     *
+     * @param client the client
+     * @param status the new status of the client
+     * @param changedMask the fields changed since the last update
+     */
+    synchronized void update(WattpilotClient client, WattpilotStatus status, int changedMask) {
+        if (!members.contains(client)) {
+            return;
+        }
+        Entry entry = entries.get(client);
+        if (entry != null && (changedMask & RELEVANT_FIELDS) == 0) {
+            return;
+        }
+        // read the status before touching the aggregates, so these stay consistent if it fails
+        DetailedChargingMetrics metrics = status.getDetailedChargingMetrics();
+        Integer energyCounterTotal = status.getEnergyCounterTotal();
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(client, entry);
+        } else {
+            subtract(entry);
+            unindex(client, entry);
+        }
+        entry.power = milliwatts(metrics.power());
+        entry.power1 = milliwatts(metrics.power1());
+        entry.power2 = milliwatts(metrics.power2());
+        entry.power3 = milliwatts(metrics.power3());
+        entry.energyCounterTotal = energyCounterTotal != null ? energyCounterTotal : 0;
+        entry.chargingState = status.getChargingState();
+        entry.chargingCurrent = status.getChargingCurrent();
+        add(entry);
+        index(client, entry);
+    }
+
+    /**
+     * Remove a client as member and remove its contribution.
+     *
+     * @param client the client
+     */
+    synchronized void remove(WattpilotClient client) {
+        members.remove(client);
+        Entry entry = entries.remove(client);
+        if (entry != null) {
+            subtract(entry);
+            unindex(client, entry);
+        }
+    }
+
+    /**
+     * Get a snapshot of the aggregates.
+     *
+     * @return the aggregates
+     */
+    synchronized FleetSummary summary() {
+        Map<ChargingState, Integer> chargingStates = new EnumMap<>(ChargingState.class);
+        byChargingState.forEach((state, clients) -> chargingStates.put(state, clients.size()));
+        return new FleetSummary(
+                entries.size(),
+                power / 1000.0,
+                power1 / 1000.0,
+                power2 / 1000.0,
+                power3 / 1000.0,
+                chargingStates,
+                energyCounterTotal);
+    }
+
+    /**
+     * Find the clients matching the given indexed conditions.
+     *
+     * @param chargingState the charging state to match, or <code>null</code> to match all states
+     * @param minChargingCurrent the minimum charging current to match, may exceed the range of
+     *     <code>int</code> to match no clients
+     * @return the matching clients
+     */
+    synchronized List<WattpilotClient> find(
+            @Nullable ChargingState chargingState, long minChargingCurrent) {
+        List<WattpilotClient> result = new ArrayList<>();
+        if (chargingState != null) {
+            Set<WattpilotClient> clients = byChargingState.get(chargingState);
+            if (clients != null) {
+                for (WattpilotClient client : clients) {
+                    Entry entry = entries.get(client);
+                    if (entry != null && entry.chargingCurrent >= minChargingCurrent) {
+                        result.add(client);
+                    }
+                }
+            }
+        } else if (minChargingCurrent <= Integer.MAX_VALUE) {
+            for (Set<WattpilotClient> clients :
+                    byChargingCurrent.tailMap((int) minChargingCurrent, true).values()) {
+                result.addAll(clients);
+            }
+        }
+        return result;
+    }
+
+    private void add(Entry entry) {
+        power += entry.power;
+        power1 += entry.power1;
+        power2 += entry.power2;
+        power3 += entry.power3;
+        energyCounterTotal += entry.energyCounterTotal;
+    }
+
+    private void subtract(Entry entry) {
+        power -= entry.power;
+        power1 -= entry.power1;
+        power2 -= entry.power2;
+        power3 -= entry.power3;
+        energyCounterTotal -= entry.energyCounterTotal;
+    }
+
+    private void index(WattpilotClient client, Entry entry) {
+        ChargingState chargingState = entry.chargingState;
+        if (chargingState != null) {
+            addTo(byChargingState, chargingState, client);
+        }
+        addTo(byChargingCurrent, entry.chargingCurrent, client);
+    }
+
+    private void unindex(WattpilotClient client, Entry entry) {
+        ChargingState chargingState = entry.chargingState;
+        if (chargingState != null) {
+            removeFrom(byChargingState, chargingState, client);
+        }
+        removeFrom(byChargingCurrent, entry.chargingCurrent, client);
+    }
+
+    private static <K> void addTo(
+            Map<K, Set<WattpilotClient>> index, K key, WattpilotClient client) {
+        Set<WattpilotClient> clients = index.get(key);
+        if (clients == null) {
+            clients = new HashSet<>();
+            index.put(key, clients);
+        }
+        clients.add(client);
+    }
+
+    private static <K> void removeFrom(
+            Map<K, Set<WattpilotClient>> index, K key, WattpilotClient client) {
+        Set<WattpilotClient> clients = index.get(key);
+        if (clients != null && clients.remove(client) && clients.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static long milliwatts(double watts) {
+        return Math.round(watts * 1000);
+    }
+
+    /** The contribution of a client to the aggregates and indexes. */
+    private static final class Entry {
+        private long power;
+        private long power1;
+        private long power2;
+        private long power3;
+        private long energyCounterTotal;
+        private @Nullable ChargingState chargingState;
+        private int chargingCurrent;
+    }
+}
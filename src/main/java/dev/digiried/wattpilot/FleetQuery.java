@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.ChargingState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Query for the wallboxes of a {@link WattpilotFleet} by their last known status, see {@link
+ * WattpilotFleet#query()}.
+ *
+ * <p>The charging state and charging current conditions are answered from indexes maintained by the
+ * fleet, so only the matching wallboxes are visited; further conditions are then checked on their
+ * status. Queries are immutable and can be executed repeatedly.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public final class FleetQuery {
+    private final FleetIndex index;
+    private final @Nullable ChargingState chargingState;
+    private final long minChargingCurrent;
+    private final @Nullable Predicate<WattpilotStatus> condition;
+
+    FleetQuery(FleetIndex index) {
+        this(index, null, Integer.MIN_VALUE, null);
+    }
+
+    private FleetQuery(
+            FleetIndex index,
+            @Nullable ChargingState chargingState,
+            long minChargingCurrent,
+            @Nullable Predicate<WattpilotStatus> condition) {
+        this.index = index;
+        this.chargingState = chargingState;
+        this.minChargingCurrent = minChargingCurrent;
+        this.condition = condition;
+    }
+
+    /**
+     * Only match wallboxes in the given charging state.
+     *
+     * @param chargingState the charging state
+     * @return the new query
+     */
+    public FleetQuery withChargingState(ChargingState chargingState) {
+        return new FleetQuery(index, chargingState, minChargingCurrent, condition);
+    }
+
+    /**
+     * Only match wallboxes with a configured charging current greater than the given current.
+     *
+     * @param chargingCurrent the charging current in amperes (A)
+     * @return the new query
+     */
+    public FleetQuery withChargingCurrentAbove(int chargingCurrent) {
+        return new FleetQuery(index, chargingState, (long) chargingCurrent + 1, condition);
+    }
+
+    /**
+     * Only match wallboxes whose status matches the given condition.
+     *
+     * @param condition the condition
+     * @return the new query
+     */
+    public FleetQuery matching(Predicate<WattpilotStatus> condition) {
+        Predicate<WattpilotStatus> current = this.condition;
+        return new FleetQuery(
+                index,
+                chargingState,
+                minChargingCurrent,
+                current != null ? current.and(condition) : condition);
+    }
+
+    /**
+     * Execute the query.
+     *
+     * @return the clients of the matching wallboxes
+     */
+    public List<WattpilotClient> list() {
+        List<WattpilotClient> candidates = index.find(chargingState, minChargingCurrent);
+        Predicate<WattpilotStatus> condition = this.condition;
+        if (condition == null) {
+            return candidates;
+        }
+        List<WattpilotClient> result = new ArrayList<>(candidates.size());
+        for (WattpilotClient client : candidates) {
+            WattpilotStatus status = client.getStatus();
+            if (status != null && condition.test(status)) {
+                result.add(client);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.ChargingState;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Aggregates over the last known status of all wallboxes of a {@link WattpilotFleet}, see {@link
+ * WattpilotFleet#getSummary()}.
+ *
+ * @param wallboxes the number of wallboxes with a known status
+ * @param power the total charging power in watts (W)
+ * @param power1 the total charging power of phase 1 in watts (W)
+ * @param power2 the total charging power of phase 2 in watts (W)
+ * @param power3 the total charging power of phase 3 in watts (W)
+ * @param chargingStates the number of wallboxes per charging state, unmodifiable
+ * @param energyCounterTotal the sum of the total energy counters in watt-hours (Wh)
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record FleetSummary(
+        int wallboxes,
+        double power,
+        double power1,
+        double power2,
+        double power3,
+        Map<ChargingState, Integer> chargingStates,
+        long energyCounterTotal) {
+    /** Create new aggregates, copying the charging states into an unmodifiable map. */
+    public FleetSummary {
+        chargingStates = Map.copyOf(chargingStates);
+    }
+
+    /**
+     * Get the number of wallboxes in the given charging state.
+     *
+     * @param state the charging state
+     * @return the number of wallboxes
+     */
+    public int count(ChargingState state) {
+        Integer count = chargingStates.get(state);
+        return count != null ? count : 0;
+    }
+}
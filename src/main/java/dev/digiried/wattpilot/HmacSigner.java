@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Signs the data of secured messages with HMAC-SHA256, keyed with the hashed password of a session.
+ *
+ * <p>The signer is keyed once after authentication and then reused for every message: it encodes
+ * the data into a reusable buffer and appends the HMAC as hex string to the outgoing frame, so
+ * signing a message does not allocate.
+ *
+ * <p>A signer is not thread-safe.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class HmacSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Mac mac;
+    private final byte[] hmac;
+    private byte[] input = new byte[256];
+
+    /**
+     * Create a new signer.
+     *
+     * @param hashedPassword the hashed password, see {@link AuthUtil#hashPassword(String, String,
+     *     AuthUtil.HashAlgorithm)}
+     * @throws NoSuchAlgorithmException if HMAC-SHA256 algorithm is not available
+     * @throws IllegalArgumentException if the hashed password is empty
+     */
+    HmacSigner(byte[] hashedPassword) throws NoSuchAlgorithmException {
+        mac = Mac.getInstance(ALGORITHM);
+        try {
+            mac.init(new SecretKeySpec(hashedPassword, ALGORITHM));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException(e);
+        }
+        hmac = new byte[mac.getMacLength()];
+    }
+
+    /**
+     * Sign the data and append the HMAC as lowercase hex string.
+     *
+     * @param data the data to sign, which is encoded as UTF-8
+     * @param out the buffer to append the HMAC to
+     * @return the buffer
+     */
+    StringBuilder sign(CharSequence data, StringBuilder out) {
+        int length = encode(data);
+        mac.update(input, 0, length);
+        try {
+            mac.doFinal(hmac, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e); // NOSONAR: this should never happen
+        }
+        for (byte b : hmac) {
+            out.append(HEX_DIGITS[(b >> 4) & 0x0f]).append(HEX_DIGITS[b & 0x0f]);
+        }
+        return out;
+    }
+
+    /**
+     * Encode the data as UTF-8 into the input buffer. Like {@link String#getBytes}, unpaired
+     * surrogates are replaced by <code>?</code>.
+     *
+     * @return the number of encoded bytes
+     */
+    private int encode(CharSequence data) {
+        int length = data.length();
+        if (input.length < length * 3) {
+            input = new byte[length * 3];
+        }
+        byte[] input = this.input;
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c < 0x80) {
+                input[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                input[pos++] = (byte) (0xc0 | (c >> 6));
+                input[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, data.charAt(++i));
+                    input[pos++] = (byte) (0xf0 | (cp >> 18));
+                    input[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    input[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    input[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    input[pos++] = '?';
+                }
+            } else {
+                input[pos++] = (byte) (0xe0 | (c >> 12));
+                input[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                input[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Snapshot of the metrics of a {@link KeyDerivationPool}.
+ *
+ * <p>The queue wait of a key derivation is the time between submitting it to the pool and starting
+ * it, its derivation time the time the derivation itself took.
+ *
+ * @param queued the number of key derivations currently waiting for a thread
+ * @param completed the number of completed key derivations, including failed derivations
+ * @param rejected the number of key derivations rejected because the queue was full
+ * @param lastQueueWait the queue wait of the last started key derivation
+ * @param maxQueueWait the maximum queue wait of all started key derivations
+ * @param lastDerivationTime the derivation time of the last completed key derivation
+ * @param maxDerivationTime the maximum derivation time of all completed key derivations
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record KeyDerivationMetrics(
+        int queued,
+        long completed,
+        long rejected,
+        Duration lastQueueWait,
+        Duration maxQueueWait,
+        Duration lastDerivationTime,
+        Duration maxDerivationTime) {}
@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Bounded thread pool deriving the keys from the passwords of the wallboxes, see {@link
+ * WattpilotClient#setKeyDerivationPool(KeyDerivationPool)}.
+ *
+ * <p>Key derivation is deliberately expensive: PBKDF2 and BCrypt take hundreds of milliseconds of
+ * CPU time. Running it on a pool of its own keeps the threads receiving the messages of the
+ * wallboxes free, and bounds the CPU time spent on key derivation when many wallboxes connect at
+ * once. Key derivations exceeding the queue capacity are rejected, which fails the connection
+ * attempt.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public final class KeyDerivationPool implements AutoCloseable {
+    /** The default maximum number of key derivations waiting for a thread. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final class Holder {
+        private static final KeyDerivationPool INSTANCE =
+                new KeyDerivationPool(
+                        Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                        DEFAULT_QUEUE_CAPACITY);
+    }
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+
+    // guarded by this
+    private long completed;
+    private long rejected;
+    private long lastQueueWait;
+    private long maxQueueWait;
+    private long lastDerivationTime;
+    private long maxDerivationTime;
+
+    /**
+     * Create a new pool.
+     *
+     * @param threads the number of threads, which are only kept alive while there is work
+     * @param queueCapacity the maximum number of key derivations waiting for a thread
+     * @throws IllegalArgumentException if <code>threads</code> or <code>queueCapacity</code> is not
+     *     positive
+     */
+    public KeyDerivationPool(int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory =
+                runnable -> {
+                    Thread thread =
+                            new Thread(
+                                    runnable,
+                                    "wattpilot-key-derivation-"
+                                            + pool
+                                            + "-"
+                                            + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        60,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity),
+                        factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the pool shared by all clients not given another pool. It has a small, fixed number of
+     * threads.
+     *
+     * @return the shared pool
+     */
+    public static KeyDerivationPool shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Get the metrics of the pool, e.g. to monitor whether connecting wallboxes wait for key
+     * derivation.
+     *
+     * @return the metrics
+     */
+    public synchronized KeyDerivationMetrics getMetrics() {
+        return new KeyDerivationMetrics(
+                executor.getQueue().size(),
+                completed,
+                rejected,
+                Duration.ofNanos(lastQueueWait),
+                Duration.ofNanos(maxQueueWait),
+                Duration.ofNanos(lastDerivationTime),
+                Duration.ofNanos(maxDerivationTime));
+    }
+
+    /**
+     * Submit a key derivation. Completing the returned future before the derivation started, e.g.
+     * by cancelling it, skips the derivation.
+     *
+     * @param derivation the key derivation
+     * @return future completing with the derived key, or exceptionally with a {@link
+     *     RejectedExecutionException} if the queue is full
+     */
+    CompletableFuture<byte[]> submit(Callable<byte[]> derivation) {
+        Task task = new Task(derivation);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                rejected++;
+            }
+            task.future.completeExceptionally(e);
+        }
+        return task.future;
+    }
+
+    private synchronized void started(long queueWait) {
+        lastQueueWait = queueWait;
+        maxQueueWait = Math.max(maxQueueWait, queueWait);
+    }
+
+    private synchronized void completed(long derivationTime) {
+        completed++;
+        lastDerivationTime = derivationTime;
+        maxDerivationTime = Math.max(maxDerivationTime, derivationTime);
+    }
+
+    /**
+     * Shut down the pool, failing queued key derivations with a {@link RejectedExecutionException}.
+     *
+     * @throws IllegalStateException if this is the {@link #shared()} pool
+     */
+    @Override
+    public void close() {
+        if (this == shared()) {
+            throw new IllegalStateException("The shared pool can not be closed");
+        }
+        for (Runnable task : executor.shutdownNow()) {
+            ((Task) task)
+                    .future.completeExceptionally(
+                            new RejectedExecutionException("Key derivation pool was closed"));
+        }
+    }
+
+    private final class Task implements Runnable {
+        private final Callable<byte[]> derivation;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        Task(Callable<byte[]> derivation) {
+            this.derivation = derivation;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            long start = System.nanoTime();
+            started(start - queuedAt);
+            try {
+                future.complete(derivation.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                completed(System.nanoTime() - start);
+            }
+        }
+    }
+}
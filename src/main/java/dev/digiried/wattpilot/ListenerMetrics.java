@@ -0,0 +1,48 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Snapshot of the dispatch metrics of an asynchronously dispatched {@link WattpilotClientListener},
+ * see {@link WattpilotClient#getListenerMetrics(WattpilotClientListener)}.
+ *
+ * <p>The lag of an event is the time between adding it to the queue of the listener and starting to
+ * deliver it to the listener.
+ *
+ * @param queued the number of events currently queued
+ * @param delivered the number of events delivered
+ * @param dropped the number of events dropped because the queue was full
+ * @param coalesced the number of status events merged into an already queued status event
+ * @param lastLag the lag of the last delivered event
+ * @param maxLag the maximum lag of all delivered events
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record ListenerMetrics(
+        int queued,
+        long delivered,
+        long dropped,
+        long coalesced,
+        Duration lastLag,
+        Duration maxLag) {}
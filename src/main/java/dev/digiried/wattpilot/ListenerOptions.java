@@ -0,0 +1,199 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Options for dispatching events to a {@link WattpilotClientListener} asynchronously, see {@link
+ * WattpilotClient#addListener(WattpilotClientListener, ListenerOptions)}.
+ *
+ * <p>Each asynchronously dispatched listener has its own bounded event queue, which is drained on
+ * the given executor. Events are delivered to the listener one at a time and in order, so the
+ * listener does not need to be thread-safe. A slow listener only delays its own events, not the
+ * processing of the messages received from the wallbox or other listeners.
+ *
+ * <p>Optionally, status events can be conflated: the listener then receives at most one status
+ * event per conflation interval, which carries the latest status and all fields changed since the
+ * last status event delivered to the listener. Changes of the flush fields, e.g. {@link
+ * StatusField#CHARGING_STATE}, are delivered immediately together with all pending changes.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public final class ListenerOptions {
+    /** The default capacity of the event queue of a listener. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    /** What to do if an event is dispatched to a listener whose queue is full. */
+    public enum OverflowPolicy {
+        /** Wait until the listener has taken an event from its queue. */
+        BLOCK,
+        /** Drop the oldest event in the queue. */
+        DROP_OLDEST,
+        /**
+         * Merge a status event into the status event last added to the queue, so the listener
+         * receives the latest status with the fields changed by both events. If the last event is
+         * not a status event, the oldest event is dropped.
+         */
+        COALESCE_LATEST_STATUS
+    }
+
+    private final Executor executor;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration conflationInterval;
+    private final int flushMask;
+
+    private ListenerOptions(
+            Executor executor,
+            int queueCapacity,
+            OverflowPolicy overflowPolicy,
+            Duration conflationInterval,
+            int flushMask) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        if (conflationInterval.isNegative()) {
+            throw new IllegalArgumentException("Conflation interval must not be negative");
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.conflationInterval = conflationInterval;
+        this.flushMask = flushMask;
+    }
+
+    /**
+     * Create options for dispatching events on the given executor, with a queue of {@link
+     * #DEFAULT_QUEUE_CAPACITY} and the {@link OverflowPolicy#COALESCE_LATEST_STATUS} policy.
+     *
+     * @param executor the executor to deliver the events on
+     * @return the options
+     */
+    public static ListenerOptions async(Executor executor) {
+        return new ListenerOptions(
+                executor,
+                DEFAULT_QUEUE_CAPACITY,
+                OverflowPolicy.COALESCE_LATEST_STATUS,
+                Duration.ZERO,
+                0);
+    }
+
+    /**
+     * Create a copy of these options with the given queue capacity.
+     *
+     * @param queueCapacity the maximum number of events queued for the listener
+     * @return the new options
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ListenerOptions withQueueCapacity(int queueCapacity) {
+        return new ListenerOptions(
+                executor, queueCapacity, overflowPolicy, conflationInterval, flushMask);
+    }
+
+    /**
+     * Create a copy of these options with the given overflow policy.
+     *
+     * @param overflowPolicy what to do if the queue of the listener is full
+     * @return the new options
+     */
+    public ListenerOptions withOverflowPolicy(OverflowPolicy overflowPolicy) {
+        return new ListenerOptions(
+                executor, queueCapacity, overflowPolicy, conflationInterval, flushMask);
+    }
+
+    /**
+     * Create a copy of these options that conflates status events to at most one per interval.
+     *
+     * @param interval the minimum interval between two status events, {@link Duration#ZERO}
+     *     disables conflation
+     * @param flushFields the fields whose changes are delivered immediately
+     * @return the new options
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public ListenerOptions withConflation(Duration interval, StatusField... flushFields) {
+        int mask = 0;
+        for (StatusField field : flushFields) {
+            mask |= field.getMask();
+        }
+        return new ListenerOptions(executor, queueCapacity, overflowPolicy, interval, mask);
+    }
+
+    /**
+     * Get the executor to deliver the events on.
+     *
+     * @return the executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Get the maximum number of events queued for the listener.
+     *
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Get what to do if the queue of the listener is full.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Get the minimum interval between two status events.
+     *
+     * @return the conflation interval, {@link Duration#ZERO} if status events are not conflated
+     */
+    public Duration getConflationInterval() {
+        return conflationInterval;
+    }
+
+    /**
+     * Get the fields whose changes are delivered immediately when conflating status events.
+     *
+     * @return the flush fields
+     */
+    public Set<StatusField> getFlushFields() {
+        Set<StatusField> fields = EnumSet.noneOf(StatusField.class);
+        for (StatusField field : StatusField.values()) {
+            if ((flushMask & field.getMask()) != 0) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    int getFlushMask() {
+        return flushMask;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import com.google.gson.JsonElement;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Listener for changes of a single property of the wallbox, see {@link
+ * WattpilotClient#subscribe(String, PropertyListener)}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public interface PropertyListener {
+    /**
+     * Called when the value of the subscribed property changed.
+     *
+     * <p>The value is shared between all listeners of the property, so it must not be modified.
+     *
+     * @param key the key of the property
+     * @param value the new value of the property
+     */
+    void propertyChanged(String key, JsonElement value);
+}
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Index of the {@link PropertyListener}s by the key ids assigned by the {@link PropertyStore}, so a
+ * change of a key is dispatched to the listeners of that key with a single array lookup.
+ *
+ * <p>The index is copy-on-write: subscribing and unsubscribing copy the affected arrays under the
+ * lock, while lookups read the current arrays without locking.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class PropertyListeners {
+    private static final PropertyListener[] NONE = new PropertyListener[0];
+
+    private volatile PropertyListener[][] listeners = new PropertyListener[0][];
+
+    /**
+     * Add a listener for the key with the given id.
+     *
+     * @param key the key
+     * @param id the id of the key, see {@link PropertyStore#intern(String)}
+     * @param listener the listener
+     * @return the subscription, which removes the listener when closed
+     */
+    PropertySubscription subscribe(String key, int id, PropertyListener listener) {
+        synchronized (this) {
+            PropertyListener[][] listeners = this.listeners;
+            if (id >= listeners.length) {
+                int length = Math.max(id + 1, listeners.length * 2);
+                listeners = Arrays.copyOf(listeners, length);
+            } else {
+                listeners = listeners.clone();
+            }
+            PropertyListener[] current = listeners[id];
+            if (current == null) {
+                current = NONE;
+            }
+            PropertyListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners[id] = updated;
+            this.listeners = listeners;
+        }
+        return new PropertySubscription() {
+            private boolean closed;
+
+            @Override
+            public String getKey() {
+                return key;
+            }
+
+            @Override
+            public void close() {
+                synchronized (PropertyListeners.this) {
+                    if (!closed) {
+                        closed = true;
+                        unsubscribe(id, listener);
+                    }
+                }
+            }
+        };
+    }
+
+    private synchronized void unsubscribe(int id, PropertyListener listener) {
+        PropertyListener[][] listeners = this.listeners.clone();
+        PropertyListener[] current = listeners[id];
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                PropertyListener[] updated = new PropertyListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                listeners[id] = updated.length == 0 ? null : updated;
+                this.listeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the listeners of the key with the given id.
+     *
+     * @param id the id of the key
+     * @return the listeners, or <code>null</code> if the key has no listeners
+     */
+    PropertyListener @Nullable [] get(int id) {
+        PropertyListener[][] listeners = this.listeners;
+        return id < listeners.length ? listeners[id] : null;
+    }
+}
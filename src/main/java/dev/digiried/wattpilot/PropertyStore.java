@@ -0,0 +1,291 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Compact store for the raw values of all properties received from the wallbox, including those not
+ * modelled by {@link WattpilotStatus}.
+ *
+ * <p>Keys are interned into a key table, which assigns each key a small id, so values are stored in
+ * arrays indexed by that id. For each key, the store only keeps the slice of the frame that holds
+ * the raw JSON value, i.e. the frame and the start and end offsets of the value in it. The value is
+ * decoded lazily when it is first read and cached until the key is updated again, so values that
+ * are never read are never decoded. A frame is retained as long as at least one of its slices is
+ * the current value of a key.
+ *
+ * <p>The store records the ids of the keys whose raw value actually changed, so changes can be
+ * dispatched to the {@link PropertyListeners} of exactly these keys.
+ *
+ * <p>All methods are synchronized on the store. Writers updating several keys of a frame should
+ * hold the monitor for the whole frame, so readers never see a partially applied frame.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class PropertyStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Open addressing hash table mapping a key's hash to its id + 1, or 0 if the slot is free. */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int size;
+
+    private @Nullable String[] frames = new String[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private @Nullable JsonElement[] decoded = new JsonElement[INITIAL_CAPACITY];
+
+    /** Ids of the keys whose value changed since the last {@link #takeChanges(int[])}. */
+    private int[] changes = new int[INITIAL_CAPACITY];
+
+    private int changeCount;
+
+    /**
+     * Store the raw value of a key.
+     *
+     * <p>The key is only copied into a new string the first time it is seen. If the value differs
+     * from the current value of the key, the key is recorded as changed, see {@link
+     * #takeChanges(int[])}, and its decoded value is discarded. Otherwise, the decoded value is
+     * kept.
+     *
+     * @param frame the frame containing key and value
+     * @param keyStart the start offset of the key (inclusive, without quotes)
+     * @param keyEnd the end offset of the key (exclusive, without quotes)
+     * @param valueStart the start offset of the raw JSON value (inclusive)
+     * @param valueEnd the end offset of the raw JSON value (exclusive)
+     * @return the id of the key
+     */
+    synchronized int put(String frame, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        int id = intern(frame, keyStart, keyEnd);
+        String current = frames[id];
+        int length = valueEnd - valueStart;
+        if (current == null
+                || ends[id] - starts[id] != length
+                || !current.regionMatches(starts[id], frame, valueStart, length)) {
+            if (changeCount == changes.length) {
+                changes = Arrays.copyOf(changes, changeCount * 2);
+            }
+            changes[changeCount++] = id;
+            decoded[id] = null;
+        }
+        // reference the newest frame, so older frames can be collected
+        frames[id] = frame;
+        starts[id] = valueStart;
+        ends[id] = valueEnd;
+        return id;
+    }
+
+    /**
+     * Get the number of keys changed since the last {@link #takeChanges(int[])}.
+     *
+     * @return the number of changed keys
+     */
+    synchronized int changeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Copy the ids of the keys changed since the last call to the given array and reset them.
+     *
+     * @param target the array to copy the ids to, must have room for {@link #changeCount()} ids
+     * @return the number of ids copied
+     */
+    synchronized int takeChanges(int[] target) {
+        int count = changeCount;
+        System.arraycopy(changes, 0, target, 0, count);
+        changeCount = 0;
+        return count;
+    }
+
+    /**
+     * Get the id of a key, assigning a new id if the key has not been seen yet. Ids are stable for
+     * the lifetime of the store.
+     *
+     * @param key the key
+     * @return the id of the key
+     */
+    synchronized int intern(String key) {
+        return intern(key, 0, key.length());
+    }
+
+    /**
+     * Get the key with the given id.
+     *
+     * @param id the id of the key
+     * @return the key
+     */
+    synchronized String keyOf(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Get the raw JSON value of a key.
+     *
+     * @param key the key
+     * @return the raw JSON value, or <code>null</code> if the key has not been received
+     */
+    synchronized @Nullable String getRaw(String key) {
+        int id = idOf(key, 0, key.length());
+        String frame = id < 0 ? null : frames[id];
+        if (frame == null) {
+            return null;
+        }
+        return frame.substring(starts[id], ends[id]);
+    }
+
+    /**
+     * Get the decoded JSON value of a key. The value is decoded at most once per update of the key.
+     *
+     * <p>The returned element is shared, so it must not be modified.
+     *
+     * @param key the key
+     * @return the decoded value, or <code>null</code> if the key has not been received
+     * @throws JsonSyntaxException if the raw value is not valid JSON
+     */
+    synchronized @Nullable JsonElement get(String key) throws JsonSyntaxException {
+        int id = idOf(key, 0, key.length());
+        return id < 0 ? null : get(id);
+    }
+
+    /**
+     * Get the decoded JSON value of the key with the given id, see {@link #get(String)}.
+     *
+     * @param id the id of the key
+     * @return the decoded value, or <code>null</code> if the key has not been received
+     * @throws JsonSyntaxException if the raw value is not valid JSON
+     */
+    synchronized @Nullable JsonElement get(int id) throws JsonSyntaxException {
+        JsonElement element = decoded[id];
+        if (element == null) {
+            String frame = frames[id];
+            if (frame == null) {
+                return null;
+            }
+            element = decoded[id] = JsonParser.parseString(frame.substring(starts[id], ends[id]));
+        }
+        return element;
+    }
+
+    /**
+     * Get all keys that have been received so far.
+     *
+     * @return the keys in the order they were first received or subscribed to
+     */
+    synchronized Set<String> keys() {
+        Set<String> result = new LinkedHashSet<>(size * 2);
+        for (int id = 0; id < size; id++) {
+            if (frames[id] != null) {
+                result.add(keys[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Look up the id of a key without interning it.
+     *
+     * @return the id of the key, or -1 if unknown
+     */
+    private int idOf(CharSequence s, int start, int end) {
+        int mask = slots.length - 1;
+        for (int slot = hash(s, start, end) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (regionEquals(keys[id], s, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    private int intern(String s, int start, int end) {
+        int mask = slots.length - 1;
+        int slot = hash(s, start, end) & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                break;
+            }
+            if (regionEquals(keys[id], s, start, end)) {
+                return id;
+            }
+        }
+        if (size == keys.length) {
+            grow();
+            return intern(s, start, end);
+        }
+        int id = size++;
+        keys[id] = s.substring(start, end);
+        slots[slot] = id + 1;
+        return id;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        frames = Arrays.copyOf(frames, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        decoded = Arrays.copyOf(decoded, capacity);
+        slots = new int[capacity * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            String key = keys[id];
+            int slot = hash(key, 0, key.length()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean regionEquals(String key, CharSequence s, int start, int end) {
+        int length = end - start;
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != s.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
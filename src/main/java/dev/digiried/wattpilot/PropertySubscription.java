@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Subscription of a {@link PropertyListener} to a property, see {@link
+ * WattpilotClient#subscribe(String, PropertyListener)}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public interface PropertySubscription extends AutoCloseable {
+    /**
+     * Get the key of the subscribed property.
+     *
+     * @return the property key
+     */
+    String getKey();
+
+    /** Cancel the subscription. Closing a subscription more than once has no effect. */
+    @Override
+    void close();
+}
@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Policy for automatically reconnecting a {@link WattpilotClient} after it lost an established
+ * connection, see {@link WattpilotClient#setReconnectPolicy(ReconnectPolicy)}.
+ *
+ * <p>The delay before the n-th consecutive reconnection attempt grows exponentially from the
+ * initial delay up to the maximum delay. Each delay is randomised to between half and all of its
+ * value, so wallboxes losing their connection at the same time, e.g. on a network outage, do not
+ * reconnect in lockstep.
+ *
+ * @param initialDelay the delay before the first reconnection attempt
+ * @param maxDelay the maximum delay between two reconnection attempts
+ * @param multiplier the factor by which the delay grows with each failed attempt
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record ReconnectPolicy(Duration initialDelay, Duration maxDelay, double multiplier) {
+    /**
+     * Create a new reconnect policy.
+     *
+     * @throws IllegalArgumentException if <code>initialDelay</code> is not positive, <code>
+     *     maxDelay</code> is less than <code>initialDelay</code> or <code>multiplier</code> is less
+     *     than 1
+     */
+    public ReconnectPolicy {
+        if (initialDelay.isNegative() || initialDelay.isZero()) {
+            throw new IllegalArgumentException("initialDelay must be positive");
+        }
+        if (maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("maxDelay must not be less than initialDelay");
+        }
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        }
+    }
+
+    /**
+     * Get the default policy, starting with a delay of one second and doubling it up to five
+     * minutes.
+     *
+     * @return the default policy
+     */
+    public static ReconnectPolicy exponential() {
+        return new ReconnectPolicy(Duration.ofSeconds(1), Duration.ofMinutes(5), 2);
+    }
+
+    /**
+     * Get the randomised delay before a reconnection attempt.
+     *
+     * @param attempt the number of failed attempts since the connection was lost
+     * @return the delay in nanoseconds
+     */
+    long delayNanos(int attempt) {
+        double delay = initialDelay.toNanos() * Math.pow(multiplier, attempt);
+        long capped = (long) Math.min(delay, maxDelay.toNanos());
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.messages.Message;
+import dev.digiried.wattpilot.messages.MessageDecoder;
+import dev.digiried.wattpilot.messages.MessageDeserializer;
+import dev.digiried.wattpilot.messages.MessageEncoder;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+/**
+ * The thread-safe resources a {@link WattpilotClient} may share with other clients, see {@link
+ * WattpilotFleet}.
+ *
+ * @param webSocketClient the WebSocket client to open the sessions with
+ * @param messageDecoder the decoder for incoming messages
+ * @param messageEncoder the encoder for outgoing messages
+ * @param scheduler the scheduler to run the timers on
+ * @param connectGate the admission control for connection attempts, including reconnects
+ * @param timeoutWheel the timing wheel for the deadlines of commands
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+record SharedResources(
+        WebSocketClient webSocketClient,
+        MessageDecoder messageDecoder,
+        MessageEncoder messageEncoder,
+        ScheduledExecutorService scheduler,
+        ConnectGate connectGate,
+        TimeoutWheel timeoutWheel) {
+    /**
+     * Create the resources for a client, with a new {@link WebSocketClient}, new codecs and without
+     * admission control.
+     *
+     * @param httpClient the HTTP client to create the WebSocket client with
+     * @param scheduler the scheduler to run the timers on
+     * @return the resources
+     */
+    static SharedResources create(HttpClient httpClient, ScheduledExecutorService scheduler) {
+        return create(httpClient, scheduler, ConnectGate.unlimited(scheduler));
+    }
+
+    /**
+     * Create the resources for a client, with a new {@link WebSocketClient} and new codecs.
+     *
+     * @param httpClient the HTTP client to create the WebSocket client with
+     * @param scheduler the scheduler to run the timers on
+     * @param connectGate the admission control for connection attempts
+     * @return the resources
+     */
+    static SharedResources create(
+            HttpClient httpClient, ScheduledExecutorService scheduler, ConnectGate connectGate) {
+        Gson gson =
+                new GsonBuilder()
+                        .registerTypeAdapter(Message.class, new MessageDeserializer())
+                        .create();
+        return new SharedResources(
+                new WebSocketClient(httpClient),
+                new MessageDecoder(gson),
+                new MessageEncoder(gson),
+                scheduler,
+                connectGate,
+                new TimeoutWheel(scheduler));
+    }
+}
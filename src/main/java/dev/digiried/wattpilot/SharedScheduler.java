@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The scheduler shared by all {@link WattpilotClient}s that are not given a scheduler, which runs
+ * their ping, timeout and conflation timers.
+ *
+ * <p>The scheduler has a small, fixed number of daemon threads, so the number of threads does not
+ * grow with the number of clients and does not prevent the JVM from exiting. Cancelled tasks are
+ * removed from the queue immediately, as ping timeouts are usually cancelled before they expire.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class SharedScheduler {
+    private SharedScheduler() {}
+
+    private static final class Holder {
+        private static final ScheduledExecutorService INSTANCE = create();
+    }
+
+    /**
+     * Get the shared scheduler, creating it on first use.
+     *
+     * @return the shared scheduler
+     */
+    static ScheduledExecutorService get() {
+        return Holder.INSTANCE;
+    }
+
+    private static ScheduledExecutorService create() {
+        int threads = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory =
+                runnable -> {
+                    Thread thread =
+                            new Thread(runnable, "wattpilot-scheduler-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, factory);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -0,0 +1,640 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.AuthorizationState;
+import dev.digiried.wattpilot.dto.ChargingMode;
+import dev.digiried.wattpilot.dto.ChargingState;
+import dev.digiried.wattpilot.dto.DetailedChargingMetrics;
+import dev.digiried.wattpilot.dto.EnforcedChargingState;
+import dev.digiried.wattpilot.dto.PropertyKeys;
+import dev.digiried.wattpilot.messages.MessageType;
+
+import java.util.Arrays;
+
+import com.google.gson.JsonSyntaxException;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Decoder applying the keys of <code>fullStatus</code> and <code>deltaStatus</code> frames directly
+ * to a {@link WattpilotStatus}, without decoding them to a {@link
+ * dev.digiried.wattpilot.dto.PartialStatus} first.
+ *
+ * <p>The decoder scans the frame itself instead of using a tokenizer: keys are looked up in a
+ * perfect hash table of the keys modelled by {@link WattpilotStatus} without creating strings, the
+ * values of modelled keys are parsed as primitives in place, and all other values are skipped at
+ * character level without materializing them. Frames therefore are decoded without allocations,
+ * except for new charging metrics if these changed and numbers too long to be parsed in place.
+ *
+ * <p>Besides, the raw values of all keys are kept in a {@link PropertyStore}, which only references
+ * the slices of the frame holding them.
+ *
+ * <p>A frame is scanned completely before anything is applied, so a malformed frame leaves both the
+ * status and the property store untouched.
+ *
+ * <p>The decoder is not thread-safe, as it keeps its scan position and reuses its buffer for the
+ * charging metrics.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class StatusDecoder {
+    private static final String TYPE = "type";
+    private static final String STATUS = "status";
+    private static final String FULL_STATUS = MessageType.FULL_STATUS.getSerializedName();
+    private static final String DELTA_STATUS = MessageType.DELTA_STATUS.getSerializedName();
+
+    private static final int ALLOW_CHARGING = 0;
+    private static final int AUTHORIZATION_STATE = 1;
+    private static final int BOOST_ENABLED = 2;
+    private static final int BOOST_BATTERY_SOC = 3;
+    private static final int CHARGING_CURRENT = 4;
+    private static final int CAR_STATE = 5;
+    private static final int ENERGY_COUNTER_TOTAL = 6;
+    private static final int FORCE_STATE = 7;
+    private static final int FORCE_SINGLE_PHASE = 8;
+    private static final int STARTING_POWER = 9;
+    private static final int STARTING_SOC = 10;
+    private static final int LOGIC_MODE = 11;
+    private static final int CHARGING_ENERGY = 12;
+    private static final int ENERGY_COUNTER_SINCE_START = 13;
+
+    /** The modelled keys, indexed by their id. */
+    private static final String[] KEYS = {
+        PropertyKeys.ALLOW_CHARGING,
+        PropertyKeys.AUTHORIZATION_STATE,
+        PropertyKeys.BOOST_ENABLED,
+        PropertyKeys.BOOST_BATTERY_SOC,
+        PropertyKeys.CHARGING_CURRENT,
+        PropertyKeys.CAR_STATE,
+        PropertyKeys.ENERGY_COUNTER_TOTAL,
+        PropertyKeys.FORCE_STATE,
+        PropertyKeys.FORCE_SINGLE_PHASE,
+        PropertyKeys.STARTING_POWER,
+        PropertyKeys.STARTING_SOC,
+        PropertyKeys.LOGIC_MODE,
+        PropertyKeys.CHARGING_ENERGY,
+        PropertyKeys.ENERGY_COUNTER_SINCE_START
+    };
+
+    private static final int MAX_KEY_LENGTH;
+    private static final int HASH_MODULUS;
+
+    /** Perfect hash table mapping the hash of a key modulo {@link #HASH_MODULUS} to its id. */
+    private static final byte[] HASH_TABLE;
+
+    static {
+        int maxKeyLength = 0;
+        for (String key : KEYS) {
+            maxKeyLength = Math.max(maxKeyLength, key.length());
+        }
+        MAX_KEY_LENGTH = maxKeyLength;
+
+        // search the smallest table size without collisions, so lookups never need to probe
+        int modulus = KEYS.length;
+        byte[] table = createHashTable(modulus);
+        while (table == null) {
+            table = createHashTable(++modulus);
+        }
+        HASH_MODULUS = modulus;
+        HASH_TABLE = table;
+    }
+
+    private static final int CHARGING_ENERGY_LENGTH =
+            DetailedChargingMetrics.CHARGING_ENERGY_LENGTH;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int SLICE_SIZE = 4;
+
+    /** The parsed values of the modelled keys of the current frame, indexed by their id. */
+    private final double[] values = new double[KEYS.length];
+
+    /** Bit mask of the ids of the modelled keys parsed from the current frame. */
+    private int parsedKeys;
+
+    /** Key and value offsets of all keys of the current frame, see {@link PropertyStore#put}. */
+    private int[] slices = new int[SLICE_SIZE * 64];
+
+    private int sliceCount;
+
+    private final double[] chargingEnergy = new double[CHARGING_ENERGY_LENGTH];
+    private final double[] appliedChargingEnergy = new double[CHARGING_ENERGY_LENGTH];
+    private boolean hasAppliedChargingEnergy;
+
+    private String frame = "";
+    private int pos;
+    private int keyStart;
+    private int keyLength;
+    private boolean keyEscaped;
+
+    private static byte @Nullable [] createHashTable(int modulus) {
+        byte[] table = new byte[modulus];
+        Arrays.fill(table, (byte) -1);
+        for (int id = 0; id < KEYS.length; id++) {
+            String key = KEYS[id];
+            int slot = Math.floorMod(hash(key, 0, key.length()), modulus);
+            if (table[slot] >= 0) {
+                return null;
+            }
+            table[slot] = (byte) id;
+        }
+        return table;
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = end - start;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Get the type of the given frame, if it is a status frame.
+     *
+     * <p>The frame is only scanned up to its <code>type</code> property, which the wallbox sends
+     * first, so this is cheap to call for every frame.
+     *
+     * @param frame the JSON frame
+     * @return {@link MessageType#FULL_STATUS} or {@link MessageType#DELTA_STATUS} if the frame is a
+     *     status frame, <code>null</code> otherwise
+     */
+    @Nullable
+    MessageType statusType(String frame) {
+        try {
+            reset(frame);
+            expect('{');
+            if (skipWhitespace() == '}') {
+                return null;
+            }
+            do {
+                if (!nextKeyEquals(TYPE)) {
+                    skipValue();
+                    continue;
+                }
+                if (peek() != '"') {
+                    return null;
+                }
+                int start = pos + 1;
+                skipString();
+                int end = pos - 1;
+                if (regionEquals(start, end, DELTA_STATUS)) {
+                    return MessageType.DELTA_STATUS;
+                } else if (regionEquals(start, end, FULL_STATUS)) {
+                    return MessageType.FULL_STATUS;
+                }
+                return null;
+            } while (nextMember('}'));
+            return null;
+        } catch (JsonSyntaxException e) {
+            return null;
+        } finally {
+            reset("");
+        }
+    }
+
+    /**
+     * Apply the status object of the given status frame to the given status, and store the raw
+     * values of all keys in the given property store.
+     *
+     * @param frame the JSON frame, see {@link #statusType(String)}
+     * @param status the status builder to apply the keys to
+     * @param properties the property store to store the raw values in
+     * @return whether the status object contained any key modelled by {@link WattpilotStatus}
+     * @throws JsonSyntaxException if the frame is malformed, in which case neither the status nor
+     *     the property store have been modified
+     */
+    boolean apply(String frame, WattpilotStatus.Builder status, PropertyStore properties)
+            throws JsonSyntaxException {
+        try {
+            reset(frame);
+            parsedKeys = 0;
+            sliceCount = 0;
+            expect('{');
+            if (skipWhitespace() == '}') {
+                return false;
+            }
+            do {
+                if (nextKeyEquals(STATUS) && peek() == '{') {
+                    parseStatusObject();
+                } else {
+                    skipValue();
+                }
+            } while (nextMember('}'));
+
+            for (int i = 0; i < sliceCount; i += SLICE_SIZE) {
+                properties.put(frame, slices[i], slices[i + 1], slices[i + 2], slices[i + 3]);
+            }
+            boolean applied = false;
+            for (int id = 0; id < KEYS.length; id++) {
+                if ((parsedKeys & (1 << id)) != 0) {
+                    applied |= applyKey(id, status);
+                }
+            }
+            return applied;
+        } finally {
+            reset("");
+        }
+    }
+
+    private void parseStatusObject() {
+        expect('{');
+        if (skipWhitespace() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            int id = nextKeyId();
+            boolean isNull = skipWhitespace() == 'n';
+            int valueStart = pos;
+            if (id < 0 || isNull) {
+                skipValue();
+            } else {
+                parseKey(id);
+            }
+            if (!keyEscaped) {
+                addSlice(keyStart, keyStart + keyLength, valueStart, pos);
+            }
+        } while (nextMember('}'));
+    }
+
+    private void addSlice(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        if (sliceCount == slices.length) {
+            slices = Arrays.copyOf(slices, sliceCount * 2);
+        }
+        slices[sliceCount++] = keyStart;
+        slices[sliceCount++] = keyEnd;
+        slices[sliceCount++] = valueStart;
+        slices[sliceCount++] = valueEnd;
+    }
+
+    /** Parse the value of a modelled key into {@link #values}, without applying it yet. */
+    private void parseKey(int id) {
+        switch (id) {
+            case ALLOW_CHARGING, BOOST_ENABLED, FORCE_SINGLE_PHASE ->
+                    values[id] = nextBoolean() ? 1 : 0;
+            case CHARGING_ENERGY -> {
+                if (!nextChargingEnergy()) {
+                    parsedKeys &= ~(1 << id);
+                    return;
+                }
+            }
+            default -> values[id] = nextNumber();
+        }
+        parsedKeys |= 1 << id;
+    }
+
+    private boolean applyKey(int id, WattpilotStatus.Builder status) {
+        double value = values[id];
+        switch (id) {
+            case ALLOW_CHARGING -> status.setChargingAllowed(value != 0);
+            case AUTHORIZATION_STATE -> {
+                AuthorizationState state = AuthorizationState.fromValue((int) value);
+                if (state == null) {
+                    return false;
+                }
+                status.setAuthorizationState(state);
+            }
+            case BOOST_ENABLED -> status.setBoostEnabled(value != 0);
+            case BOOST_BATTERY_SOC -> status.setBoostSoCLimit((int) value);
+            case CHARGING_CURRENT -> status.setChargingCurrent((int) value);
+            case CAR_STATE -> {
+                ChargingState state = ChargingState.fromValue((int) value);
+                if (state == null) {
+                    return false;
+                }
+                status.setChargingState(state);
+            }
+            case ENERGY_COUNTER_TOTAL -> status.setEnergyCounterTotal((int) value);
+            case FORCE_STATE -> {
+                EnforcedChargingState state = EnforcedChargingState.fromValue((int) value);
+                if (state == null) {
+                    return false;
+                }
+                status.setEnforcedState(state);
+            }
+            case FORCE_SINGLE_PHASE -> status.setChargingSinglePhase(value != 0);
+            case STARTING_POWER -> status.setSurplusPowerThreshold((float) value);
+            case STARTING_SOC -> status.setSurplusSoCThreshold((int) value);
+            case LOGIC_MODE -> {
+                ChargingMode mode = ChargingMode.fromValue((int) value);
+                if (mode == null) {
+                    return false;
+                }
+                status.setChargingMode(mode);
+            }
+            case CHARGING_ENERGY -> {
+                if (!hasAppliedChargingEnergy
+                        || !Arrays.equals(chargingEnergy, appliedChargingEnergy)) {
+                    System.arraycopy(
+                            chargingEnergy, 0, appliedChargingEnergy, 0, CHARGING_ENERGY_LENGTH);
+                    hasAppliedChargingEnergy = true;
+                    status.setChargingMetrics(
+                            DetailedChargingMetrics.fromChargingEnergy(chargingEnergy));
+                }
+            }
+            case ENERGY_COUNTER_SINCE_START -> status.setEnergyCounterSinceStart(value);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the charging energy array into the reused buffer in full precision.
+     *
+     * <p>The array is rejected as a whole if it does not have the expected length or any element is
+     * not a number, e.g. <code>null</code>, so metrics never mix values of different frames.
+     *
+     * @return whether the array had the expected length and only numeric elements
+     */
+    private boolean nextChargingEnergy() {
+        if (peek() != '[') {
+            skipValue();
+            return false;
+        }
+        expect('[');
+        if (skipWhitespace() == ']') {
+            pos++;
+            return false;
+        }
+        int i = 0;
+        boolean numeric = true;
+        do {
+            char c = peek();
+            if (i < CHARGING_ENERGY_LENGTH && (c == '-' || (c >= '0' && c <= '9'))) {
+                chargingEnergy[i] = nextNumber();
+            } else {
+                numeric = false;
+                skipValue();
+            }
+            i++;
+        } while (nextMember(']'));
+        return numeric && i == CHARGING_ENERGY_LENGTH;
+    }
+
+    private void reset(String frame) {
+        this.frame = frame;
+        this.pos = 0;
+    }
+
+    /**
+     * Skip whitespace and return the next character without consuming it.
+     *
+     * @throws JsonSyntaxException if the end of the frame is reached
+     */
+    private char skipWhitespace() {
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        throw syntaxError("Unexpected end of frame");
+    }
+
+    private char peek() {
+        return skipWhitespace();
+    }
+
+    private void expect(char expected) {
+        if (skipWhitespace() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Consume the separator after a member or element.
+     *
+     * @param close the closing character of the current object or array
+     * @return <code>true</code> if another member or element follows, <code>false</code> if the
+     *     object or array has been closed
+     */
+    private boolean nextMember(char close) {
+        char c = skipWhitespace();
+        pos++;
+        if (c == ',') {
+            return true;
+        } else if (c == close) {
+            return false;
+        }
+        throw syntaxError("Expected ',' or '" + close + "'");
+    }
+
+    /**
+     * Consume the next key including the following colon and check whether it equals the given key.
+     */
+    private boolean nextKeyEquals(String key) {
+        if (skipWhitespace() != '"') {
+            throw syntaxError("Expected key");
+        }
+        int start = pos + 1;
+        boolean escaped = skipString();
+        int end = pos - 1;
+        expect(':');
+        return !escaped && regionEquals(start, end, key);
+    }
+
+    /**
+     * Consume the next key including the following colon and look up its id. The position and
+     * length of the key and whether it contains escape sequences are kept in {@link #keyStart},
+     * {@link #keyLength} and {@link #keyEscaped}.
+     *
+     * @return the id of the key, or -1 if the key is not modelled
+     */
+    private int nextKeyId() {
+        if (skipWhitespace() != '"') {
+            throw syntaxError("Expected key");
+        }
+        int start = keyStart = pos + 1;
+        boolean escaped = keyEscaped = skipString();
+        int end = pos - 1;
+        int length = keyLength = end - start;
+        expect(':');
+        if (escaped || length == 0 || length > MAX_KEY_LENGTH) {
+            return -1;
+        }
+        int id = HASH_TABLE[Math.floorMod(hash(frame, start, end), HASH_MODULUS)];
+        return id >= 0 && regionEquals(start, end, KEYS[id]) ? id : -1;
+    }
+
+    private boolean regionEquals(int start, int end, String s) {
+        return end - start == s.length() && frame.regionMatches(start, s, 0, s.length());
+    }
+
+    private boolean nextBoolean() {
+        if (frame.startsWith("true", pos)) {
+            pos += 4;
+            return true;
+        } else if (frame.startsWith("false", pos)) {
+            pos += 5;
+            return false;
+        }
+        throw syntaxError("Expected boolean");
+    }
+
+    /**
+     * Parse the next number in place.
+     *
+     * <p>Numbers with up to 15 significant digits and a decimal exponent of at most 22 are exactly
+     * representable, so they are computed from their digits with a single, correctly rounded
+     * multiplication or division. Only other numbers are parsed from a substring.
+     */
+    private double nextNumber() {
+        int start = pos;
+        int length = frame.length();
+        boolean negative = pos < length && frame.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        int integerStart = pos;
+        while (pos < length && isDigit(frame.charAt(pos))) {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (frame.charAt(pos) - '0');
+                digits += mantissa == 0 ? 0 : 1;
+            } else {
+                exponent++;
+            }
+            pos++;
+        }
+        if (pos == integerStart) {
+            throw syntaxError("Expected number");
+        }
+        if (pos < length && frame.charAt(pos) == '.') {
+            pos++;
+            while (pos < length && isDigit(frame.charAt(pos))) {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (frame.charAt(pos) - '0');
+                    digits += mantissa == 0 ? 0 : 1;
+                    exponent--;
+                }
+                pos++;
+            }
+        }
+        if (pos < length && (frame.charAt(pos) == 'e' || frame.charAt(pos) == 'E')) {
+            pos++;
+            boolean negativeExponent = pos < length && frame.charAt(pos) == '-';
+            if (pos < length && (frame.charAt(pos) == '-' || frame.charAt(pos) == '+')) {
+                pos++;
+            }
+            int value = 0;
+            while (pos < length && isDigit(frame.charAt(pos))) {
+                value = Math.min(value * 10 + (frame.charAt(pos) - '0'), 10000);
+                pos++;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (digits <= 15 && exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (digits <= 15 && exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            try {
+                return Double.parseDouble(frame.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw syntaxError("Invalid number");
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Skip the next value without materializing it. */
+    private void skipValue() {
+        char c = skipWhitespace();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipNested();
+        } else {
+            int start = pos;
+            while (pos < frame.length()) {
+                c = frame.charAt(pos);
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n'
+                        || c == '\r') {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw syntaxError("Expected value");
+            }
+        }
+    }
+
+    /**
+     * Skip the string starting at the current position.
+     *
+     * @return whether the string contained escape sequences
+     */
+    private boolean skipString() {
+        boolean escaped = false;
+        pos++;
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos++);
+            if (c == '"') {
+                return escaped;
+            } else if (c == '\\') {
+                escaped = true;
+                pos++;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /** Skip the object or array starting at the current position, including nested values. */
+    private void skipNested() {
+        int depth = 0;
+        while (pos < frame.length()) {
+            char c = frame.charAt(pos);
+            if (c == '"') {
+                skipString();
+                continue;
+            }
+            pos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return;
+            }
+        }
+        throw syntaxError("Unterminated object or array");
+    }
+
+    private JsonSyntaxException syntaxError(String message) {
+        return new JsonSyntaxException(message + " at position " + pos);
+    }
+}
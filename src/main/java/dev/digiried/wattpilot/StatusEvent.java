@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Event describing a change of the {@link WattpilotStatus}.
+ *
+ * @param status the new status
+ * @param changedMask the bit mask of the {@link StatusField}s that changed, see {@link
+ *     StatusField#getMask()}
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public record StatusEvent(WattpilotStatus status, int changedMask) {
+    /** The mask with all {@link StatusField}s marked as changed. */
+    public static final int ALL_FIELDS = (1 << StatusField.values().length) - 1;
+
+    /**
+     * Whether the given field changed.
+     *
+     * @param field the field
+     * @return whether the field changed
+     */
+    public boolean hasChanged(StatusField field) {
+        return (changedMask & field.getMask()) != 0;
+    }
+
+    /**
+     * Whether any of the given fields changed.
+     *
+     * @param fields the fields
+     * @return whether any of the fields changed
+     */
+    public boolean hasChangedAny(StatusField... fields) {
+        for (StatusField field : fields) {
+            if (hasChanged(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merge this event with a newer event into an event carrying the status of the newer event and
+     * the fields changed by both events.
+     *
+     * @param newer the newer event
+     * @return the merged event
+     */
+    StatusEvent merge(StatusEvent newer) {
+        return new StatusEvent(newer.status, changedMask | newer.changedMask);
+    }
+
+    /**
+     * Get the fields that changed.
+     *
+     * @return the changed fields
+     */
+    public Set<StatusField> changedFields() {
+        Set<StatusField> fields = EnumSet.noneOf(StatusField.class);
+        for (StatusField field : StatusField.values()) {
+            if (hasChanged(field)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.dto.PropertyKeys;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The fields of the {@link WattpilotStatus}, used to tell which fields changed in a {@link
+ * StatusEvent}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public enum StatusField {
+    /** {@link WattpilotStatus#isChargingAllowed()} */
+    CHARGING_ALLOWED(PropertyKeys.ALLOW_CHARGING),
+    /** {@link WattpilotStatus#getAuthorizationState()} */
+    AUTHORIZATION_STATE(PropertyKeys.AUTHORIZATION_STATE),
+    /** {@link WattpilotStatus#isBoostEnabled()} */
+    BOOST_ENABLED(PropertyKeys.BOOST_ENABLED),
+    /** {@link WattpilotStatus#getBoostSoCLimit()} */
+    BOOST_SOC_LIMIT(PropertyKeys.BOOST_BATTERY_SOC),
+    /** {@link WattpilotStatus#getChargingCurrent()} */
+    CHARGING_CURRENT(PropertyKeys.CHARGING_CURRENT),
+    /** {@link WattpilotStatus#getChargingState()} */
+    CHARGING_STATE(PropertyKeys.CAR_STATE),
+    /** {@link WattpilotStatus#getEnergyCounterTotal()} */
+    ENERGY_COUNTER_TOTAL(PropertyKeys.ENERGY_COUNTER_TOTAL),
+    /** {@link WattpilotStatus#getEnforcedChargingState()} */
+    ENFORCED_CHARGING_STATE(PropertyKeys.FORCE_STATE),
+    /** {@link WattpilotStatus#isChargingSinglePhase()} */
+    CHARGING_SINGLE_PHASE(PropertyKeys.FORCE_SINGLE_PHASE),
+    /** {@link WattpilotStatus#getSurplusPowerThreshold()} */
+    SURPLUS_POWER_THRESHOLD(PropertyKeys.STARTING_POWER),
+    /** {@link WattpilotStatus#getSurplusSoCThreshold()} */
+    SURPLUS_SOC_THRESHOLD(PropertyKeys.STARTING_SOC),
+    /** {@link WattpilotStatus#getChargingMode()} */
+    CHARGING_MODE(PropertyKeys.LOGIC_MODE),
+    /**
+     * {@link WattpilotStatus#getChargingMetrics()} and {@link
+     * WattpilotStatus#getDetailedChargingMetrics()}
+     */
+    CHARGING_METRICS(PropertyKeys.CHARGING_ENERGY),
+    /** {@link WattpilotStatus#getEnergyCounterSinceStart()} */
+    ENERGY_COUNTER_SINCE_START(PropertyKeys.ENERGY_COUNTER_SINCE_START);
+
+    private final String key;
+    private final int mask;
+
+    StatusField(String key) {
+        this.key = key;
+        this.mask = 1 << ordinal();
+    }
+
+    /**
+     * Get the key of the wallbox property this field is read from.
+     *
+     * @return the property key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the bit of this field in {@link StatusEvent#changedMask()}.
+     *
+     * @return the bit mask of this field
+     */
+    public int getMask() {
+        return mask;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel for timeouts that are usually cancelled before they expire, like the
+ * deadlines of commands awaiting their response.
+ *
+ * <p>Instead of scheduling a task per timeout, timeouts are put into the slot of the tick they
+ * expire in, so adding and cancelling a timeout is constant time and does not touch the queue of
+ * the scheduler. A single task on the scheduler advances the wheel every tick while there are
+ * pending timeouts. Timeouts never expire early, but up to one tick late.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+final class TimeoutWheel {
+    /** The default duration of a tick. */
+    static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+
+    /** The default number of slots, covering 51.2 seconds with the default tick. */
+    static final int DEFAULT_SLOTS = 512;
+
+    private final Logger logger = LoggerFactory.getLogger(TimeoutWheel.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+
+    // guarded by this
+    private final Timeout[] slots;
+    private int pending;
+    private long processedTick;
+    private @Nullable ScheduledFuture<?> tickTask;
+
+    /**
+     * Create a new timing wheel with the default tick and number of slots.
+     *
+     * @param scheduler the scheduler to advance the wheel on
+     */
+    TimeoutWheel(ScheduledExecutorService scheduler) {
+        this(scheduler, DEFAULT_TICK, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Create a new timing wheel.
+     *
+     * @param scheduler the scheduler to advance the wheel on
+     * @param tick the duration of a tick, i.e. the resolution of the timeouts
+     * @param slots the number of slots; timeouts longer than a revolution of the wheel are visited
+     *     once per revolution until they expire
+     */
+    TimeoutWheel(ScheduledExecutorService scheduler, Duration tick, int slots) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+        this.scheduler = scheduler;
+        this.tickNanos = tick.toNanos();
+        this.slots = new Timeout[slots];
+    }
+
+    /**
+     * Schedule a timeout.
+     *
+     * @param task the task to run on expiry, on the thread of the scheduler
+     * @param delay the delay after which the timeout expires
+     * @return the timeout, which can be cancelled
+     */
+    Timeout schedule(Runnable task, Duration delay) {
+        synchronized (this) {
+            long elapsed = System.nanoTime() - origin;
+            if (tickTask == null) {
+                // the wheel was idle, so there is nothing to catch up on
+                processedTick = elapsed / tickNanos;
+                tickTask =
+                        scheduler.scheduleAtFixedRate(
+                                this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+            }
+            // round up, so the timeout never expires early
+            long deadline = (elapsed + delay.toNanos() + tickNanos - 1) / tickNanos;
+            Timeout timeout = new Timeout(task, Math.max(deadline, processedTick + 1));
+            timeout.link();
+            pending++;
+            return timeout;
+        }
+    }
+
+    /**
+     * Get the number of pending timeouts.
+     *
+     * @return the number of pending timeouts
+     */
+    synchronized int pending() {
+        return pending;
+    }
+
+    /** Processes the ticks elapsed since the last run, catching up if the scheduler was late. */
+    private void advance() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = (System.nanoTime() - origin) / tickNanos;
+            while (processedTick < now && pending > 0) {
+                processedTick++;
+                Timeout timeout = slots[(int) (processedTick % slots.length)];
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadline <= processedTick) {
+                        timeout.unlink();
+                        pending--;
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+            processedTick = now;
+            var tickTask = this.tickTask;
+            if (pending == 0 && tickTask != null) {
+                tickTask.cancel(false);
+                this.tickTask = null;
+            }
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Timeout task failed", e);
+            }
+        }
+    }
+
+    /** A timeout scheduled on the wheel, linked into the list of its slot. */
+    final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final int slot;
+        private @Nullable Timeout previous;
+        private @Nullable Timeout next;
+        private boolean linked;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+            this.slot = (int) (deadline % slots.length);
+        }
+
+        /**
+         * Cancel the timeout, if it has not expired yet.
+         *
+         * @return whether the timeout was cancelled
+         */
+        boolean cancel() {
+            synchronized (TimeoutWheel.this) {
+                if (!linked) {
+                    return false;
+                }
+                unlink();
+                pending--;
+                return true;
+            }
+        }
+
+        private void link() {
+            Timeout head = slots[slot];
+            next = head;
+            if (head != null) {
+                head.previous = this;
+            }
+            slots[slot] = this;
+            linked = true;
+        }
+
+        private void unlink() {
+            Timeout previous = this.previous;
+            Timeout next = this.next;
+            if (previous != null) {
+                previous.next = next;
+            } else {
+                slots[slot] = next;
+            }
+            if (next != null) {
+                next.previous = previous;
+            }
+            this.previous = null;
+            this.next = null;
+            linked = false;
+        }
+    }
+}
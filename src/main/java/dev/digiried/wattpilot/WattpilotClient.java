@@ -21,9 +21,8 @@ package dev.digiried.wattpilot;
 
 import dev.digiried.wattpilot.commands.Command;
 import dev.digiried.wattpilot.commands.CommandResponse;
-import dev.digiried.wattpilot.commands.CommandValue;
-import dev.digiried.wattpilot.commands.CommandValueSerializer;
-import dev.digiried.wattpilot.dto.PartialStatus;
+import dev.digiried.wattpilot.commands.CommandTimeoutException;
+import dev.digiried.wattpilot.dto.ChargingState;
 import dev.digiried.wattpilot.messages.AuthErrorMessage;
 import dev.digiried.wattpilot.messages.AuthMessage;
 import dev.digiried.wattpilot.messages.AuthRequiredMessage;
@@ -33,29 +32,33 @@ import dev.digiried.wattpilot.messages.FullStatusMessage;
 import dev.digiried.wattpilot.messages.HelloMessage;
 import dev.digiried.wattpilot.messages.IncomingMessage;
 import dev.digiried.wattpilot.messages.Message;
-import dev.digiried.wattpilot.messages.MessageDeserializer;
-import dev.digiried.wattpilot.messages.OutgoingMessage;
+import dev.digiried.wattpilot.messages.MessageDecoder;
+import dev.digiried.wattpilot.messages.MessageEncoder;
+import dev.digiried.wattpilot.messages.MessageType;
 import dev.digiried.wattpilot.messages.ResponseMessage;
-import dev.digiried.wattpilot.messages.SecuredMessage;
-import dev.digiried.wattpilot.messages.SetValueMessage;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -74,20 +77,40 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class WattpilotClient {
-    private static final String PING_MESSAGE = "{\"type\":\"PING\"}";
+    /** The default maximum number of commands awaiting their response at a time. */
+    public static final int DEFAULT_MAX_COMMANDS_IN_FLIGHT = 16;
+
+    /** The default time to wait for the response to a command. */
+    public static final Duration DEFAULT_COMMAND_TIMEOUT = Duration.ofSeconds(10);
+
     private static final String PONG_RESPONSE_MESSAGE = "unknown message type=\"PING\"";
 
     private final Logger logger = LoggerFactory.getLogger(WattpilotClient.class);
-    private final Gson gson =
-            new GsonBuilder()
-                    .registerTypeAdapter(Message.class, new MessageDeserializer())
-                    .registerTypeAdapter(CommandValue.class, new CommandValueSerializer())
-                    .create();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final StatusDecoder statusDecoder = new StatusDecoder();
+    private final PropertyStore propertyStore = new PropertyStore();
+    private final PropertyListeners propertyListeners = new PropertyListeners();
+    // ids of the properties changed by the last status frame, used by the WebSocket thread only
+    private int[] changedPropertyIds = new int[64];
+    private final MessageDecoder messageDecoder;
+    private final MessageEncoder messageEncoder;
+    // reusable buffers for encoding outgoing frames, guarded by frameBuffer
+    private final StringBuilder frameBuffer = new StringBuilder(256);
+    private final StringBuilder dataBuffer = new StringBuilder(128);
+    private final ScheduledExecutorService scheduler;
+    private final ConnectGate connectGate;
+    private final TimeoutWheel timeoutWheel;
 
     private final Set<WattpilotClientListener> listeners = new CopyOnWriteArraySet<>();
+    private final Map<WattpilotClientListener, AsyncListener> asyncListeners =
+            new ConcurrentHashMap<>();
+    private final ConflatingPublisher<StatusEvent> statusPublisher =
+            new ConflatingPublisher<>(StatusEvent::merge, this::currentStatusEvent);
+    private final ConflatingPublisher<ConnectionEvent> connectionPublisher =
+            new ConflatingPublisher<>((pending, newer) -> newer, () -> null);
     private final WebSocketClient client;
-    private final WattpilotStatus wattpilotStatus = new WattpilotStatus();
+    // working copy of the status, written by the WebSocket thread only
+    private final WattpilotStatus.Builder statusBuilder = new WattpilotStatus.Builder();
+    private volatile @Nullable WattpilotStatus wattpilotStatus;
     private final Map<String, CompletableFuture<CommandResponse>> responseFutures =
             new ConcurrentHashMap<>();
 
@@ -100,11 +123,31 @@ public class WattpilotClient {
     private @Nullable ScheduledFuture<?> timeoutTask;
 
     private @Nullable Session session;
+    // the listener of the current connection attempt, guarded by this
+    private @Nullable FroniusWebsocketListener activeListener;
     private boolean isAuthenticated = false;
     private boolean isInitialized = false;
-    private byte[] hashedPassword = new byte[0];
+    // signs the secured messages of the session, guarded by frameBuffer
+    private @Nullable HmacSigner signer;
     private @Nullable WattpilotInfo wattpilotInfo;
-    private int requestCounter = 0;
+    private final AtomicInteger requestCounter = new AtomicInteger();
+    // commands waiting for the pipelining window, guarded by queuedCommands
+    private final Queue<QueuedCommand> queuedCommands = new ArrayDeque<>();
+    private int commandsInFlight = 0;
+    private int maxCommandsInFlight = DEFAULT_MAX_COMMANDS_IN_FLIGHT;
+    private boolean drainingCommands = false;
+    private volatile Duration commandTimeout = DEFAULT_COMMAND_TIMEOUT;
+    private final LongAdder timedOutCommands = new LongAdder();
+
+    private volatile @Nullable ReconnectPolicy reconnectPolicy;
+    private volatile @Nullable DerivedKeyCache keyCache = DerivedKeyCache.shared();
+    private volatile KeyDerivationPool keyDerivationPool = KeyDerivationPool.shared();
+    // the connection parameters retained for reconnecting and the reconnect state, guarded by this
+    private @Nullable String host;
+    private @Nullable String password;
+    private boolean reconnectEnabled = false;
+    private int reconnectAttempts = 0;
+    private @Nullable ScheduledFuture<?> reconnectTask;
 
     /**
      * Create a new Fronius Wattpilot client using the given {@link HttpClient}.
@@ -112,9 +155,7 @@ public class WattpilotClient {
      * @param httpClient the HTTP client to use, allows configuring HTTP settings
      */
     public WattpilotClient(HttpClient httpClient) {
-        this.client = new WebSocketClient(httpClient);
-        pingInterval = 30;
-        pingTimeout = 3;
+        this(httpClient, 30, 3);
     }
 
     /**
@@ -126,7 +167,47 @@ public class WattpilotClient {
      * @param pingTimeout the ping timeout; must be less than <code>pingInterval</code>
      */
     public WattpilotClient(HttpClient httpClient, int pingInterval, int pingTimeout) {
-        this.client = new WebSocketClient(httpClient);
+        this(httpClient, pingInterval, pingTimeout, SharedScheduler.get());
+    }
+
+    /**
+     * Creates a new Fronius Wattpilot client using the given {@link HttpClient}, the provided ping
+     * interval and timeout, and the given scheduler for its timers.
+     *
+     * <p>Clients created without a scheduler share a scheduler with a small, fixed number of
+     * threads. Timer tasks are short, but they may call {@link
+     * WattpilotClientListener#disconnected(String, Throwable)} on a ping timeout, so listeners
+     * doing blocking work should be added with {@link ListenerOptions}.
+     *
+     * @param httpClient the HTTP client to use, allows configuring HTTP settings
+     * @param pingInterval the ping interval
+     * @param pingTimeout the ping timeout; must be less than <code>pingInterval</code>
+     * @param scheduler the scheduler to run the ping and timeout tasks on, which is not shut down
+     *     by the client
+     */
+    public WattpilotClient(
+            HttpClient httpClient,
+            int pingInterval,
+            int pingTimeout,
+            ScheduledExecutorService scheduler) {
+        this(SharedResources.create(httpClient, scheduler), pingInterval, pingTimeout);
+    }
+
+    /**
+     * Creates a new Fronius Wattpilot client using the given shared resources, see {@link
+     * WattpilotFleet}.
+     *
+     * @param resources the resources shared with other clients
+     * @param pingInterval the ping interval
+     * @param pingTimeout the ping timeout; must be less than <code>pingInterval</code>
+     */
+    WattpilotClient(SharedResources resources, int pingInterval, int pingTimeout) {
+        this.client = resources.webSocketClient();
+        this.messageDecoder = resources.messageDecoder();
+        this.messageEncoder = resources.messageEncoder();
+        this.scheduler = resources.scheduler();
+        this.connectGate = resources.connectGate();
+        this.timeoutWheel = resources.timeoutWheel();
         if (pingTimeout >= pingInterval) {
             throw new IllegalArgumentException("pingTimeout must be less than pingInterval");
         }
@@ -144,12 +225,137 @@ public class WattpilotClient {
     }
 
     /**
-     * Removes a {@link WattpilotClientListener} from the client.
+     * Adds a {@link WattpilotClientListener} to the client, which receives its events
+     * asynchronously through its own bounded queue as configured by the given options.
+     *
+     * @param listener the listener to add
+     * @param options the dispatch options
+     */
+    public void addListener(WattpilotClientListener listener, ListenerOptions options) {
+        AsyncListener asyncListener = new AsyncListener(listener, options, scheduler);
+        AsyncListener previous = asyncListeners.put(listener, asyncListener);
+        if (previous != null) {
+            listeners.remove(previous);
+            previous.close();
+        }
+        listeners.add(asyncListener);
+    }
+
+    /**
+     * Removes a {@link WattpilotClientListener} from the client. Events queued for an
+     * asynchronously dispatched listener are discarded.
      *
      * @param listener the listener to remove
      */
     public void removeListener(WattpilotClientListener listener) {
-        listeners.remove(listener);
+        AsyncListener asyncListener = asyncListeners.remove(listener);
+        if (asyncListener != null) {
+            listeners.remove(asyncListener);
+            asyncListener.close();
+        } else {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Get a {@link Flow.Publisher} of the {@link StatusEvent}s of the client, e.g. for plugging the
+     * client into reactive pipelines.
+     *
+     * <p>Subscribers start with an event carrying the current status, if available, with all fields
+     * marked as changed. The publisher honours the demand signalled by the subscribers: status
+     * events published while a subscriber has no outstanding demand are merged into a single
+     * pending event, which carries the latest status and all fields changed in the meantime. A slow
+     * subscriber therefore never causes events to be buffered.
+     *
+     * <p>Events are delivered on the thread processing the messages of the wallbox or on the thread
+     * requesting them, so subscribers should hand off long-running work.
+     *
+     * @return the status event publisher
+     */
+    public Flow.Publisher<StatusEvent> statusEvents() {
+        return statusPublisher;
+    }
+
+    /**
+     * Get a {@link Flow.Publisher} of the {@link ConnectionEvent}s of the client.
+     *
+     * <p>Like {@link #statusEvents()}, the publisher honours the demand of its subscribers: a
+     * subscriber without outstanding demand only receives the latest connection event once it
+     * requests more.
+     *
+     * @return the connection event publisher
+     */
+    public Flow.Publisher<ConnectionEvent> connectionEvents() {
+        return connectionPublisher;
+    }
+
+    private @Nullable StatusEvent currentStatusEvent() {
+        WattpilotStatus status = wattpilotStatus;
+        return status != null ? new StatusEvent(status, StatusEvent.ALL_FIELDS) : null;
+    }
+
+    /**
+     * Get the dispatch metrics of an asynchronously dispatched {@link WattpilotClientListener},
+     * e.g. to monitor how far a listener lags behind the wallbox.
+     *
+     * @param listener the listener
+     * @return the metrics or <code>null</code> if the listener has not been added with {@link
+     *     ListenerOptions}
+     */
+    public @Nullable ListenerMetrics getListenerMetrics(WattpilotClientListener listener) {
+        AsyncListener asyncListener = asyncListeners.get(listener);
+        return asyncListener != null ? asyncListener.metrics() : null;
+    }
+
+    /**
+     * Set the policy for automatically reconnecting to the wallbox after the client lost an
+     * established connection. By default, the client does not reconnect.
+     *
+     * <p>While reconnecting, {@link #getStatus()} keeps returning the last status received, marked
+     * as {@link WattpilotStatus#isStale() stale}. Once the client received the full status after
+     * reconnecting, it publishes an up-to-date status, reporting only the fields that differ from
+     * the stale status as changed.
+     *
+     * <p>The client stops reconnecting if it is disconnected with {@link #disconnect()} or the
+     * authentication fails.
+     *
+     * @param policy the reconnect policy or <code>null</code> to disable reconnecting
+     */
+    public void setReconnectPolicy(@Nullable ReconnectPolicy policy) {
+        this.reconnectPolicy = policy;
+        if (policy == null) {
+            cancelReconnectTask();
+        }
+    }
+
+    /**
+     * Get the policy for automatically reconnecting to the wallbox.
+     *
+     * @return the reconnect policy or <code>null</code> if the client does not reconnect
+     */
+    public @Nullable ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /**
+     * Set the cache for the keys derived from the password of the wallbox, which allows to skip the
+     * expensive key derivation when reconnecting. By default, the client uses an in-memory cache
+     * shared with all other clients, see {@link DerivedKeyCache#shared()}.
+     *
+     * @param cache the cache or <code>null</code> to derive the key on every connection
+     */
+    public void setDerivedKeyCache(@Nullable DerivedKeyCache cache) {
+        this.keyCache = cache;
+    }
+
+    /**
+     * Set the pool deriving the key from the password of the wallbox. By default, the client uses a
+     * pool shared with all other clients, see {@link KeyDerivationPool#shared()}.
+     *
+     * @param pool the key derivation pool
+     */
+    public void setKeyDerivationPool(KeyDerivationPool pool) {
+        this.keyDerivationPool = pool;
     }
 
     /**
@@ -172,6 +378,13 @@ public class WattpilotClient {
             throw new IOException("Can not connect on already connected session");
         }
         logger.debug("Connecting to wallbox at {}", host);
+        synchronized (this) {
+            cancelReconnectTask();
+            this.host = host;
+            this.password = password;
+            // only reconnect once the connection has been established
+            reconnectEnabled = false;
+        }
         return connectWebsocket(host, password);
     }
 
@@ -184,6 +397,7 @@ public class WattpilotClient {
      * @return future that completes once the client has successfully disconnected
      */
     public CompletableFuture<@Nullable Void> disconnect() {
+        stopReconnecting();
         var session = this.session;
         if (session != null && session.isOpen()) {
             logger.debug("Disconnecting from wallbox at {}", session.getRemoteSocketAddress());
@@ -214,53 +428,298 @@ public class WattpilotClient {
     }
 
     /**
-     * Get the current status of the wallbox.
+     * Get the priority of the connection attempts of this client for admission control, see {@link
+     * ConnectGate}: wallboxes with a car connected, especially if charging, are connected first.
+     *
+     * @return the connection priority
+     */
+    int connectPriority() {
+        WattpilotStatus status = wattpilotStatus;
+        ChargingState chargingState = status != null ? status.getChargingState() : null;
+        if (chargingState == null) {
+            return 0;
+        }
+        return switch (chargingState) {
+            case CHARGING -> 2;
+            case READY, COMPLETE -> 1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Get the current status of the wallbox. After the connection was lost, the last status
+     * received is kept and marked as {@link WattpilotStatus#isStale() stale}.
      *
      * @return the current status or <code>null</code> if not available yet
      */
     public @Nullable WattpilotStatus getStatus() {
-        if (!isInitialized) {
-            return null;
+        return wattpilotStatus;
+    }
+
+    /**
+     * Get the value of a property of the wallbox, including properties not modelled by {@link
+     * WattpilotStatus}. See {@link dev.digiried.wattpilot.dto.PropertyKeys} for common keys.
+     *
+     * <p>Values are kept in their raw form and only decoded when first read after an update. The
+     * returned element is shared between all readers, so it must not be modified.
+     *
+     * @param key the key of the property
+     * @return the value of the property or <code>null</code> if not available (yet)
+     * @throws JsonSyntaxException if the value received from the wallbox is not valid JSON
+     */
+    public @Nullable JsonElement getProperty(String key) throws JsonSyntaxException {
+        return propertyStore.get(key);
+    }
+
+    /**
+     * Get the raw JSON value of a property of the wallbox, including properties not modelled by
+     * {@link WattpilotStatus}. See {@link dev.digiried.wattpilot.dto.PropertyKeys} for common keys.
+     *
+     * @param key the key of the property
+     * @return the raw JSON value of the property or <code>null</code> if not available (yet)
+     */
+    public @Nullable String getRawProperty(String key) {
+        return propertyStore.getRaw(key);
+    }
+
+    /**
+     * Get the keys of all properties received from the wallbox so far.
+     *
+     * @return the property keys
+     */
+    public Set<String> getPropertyKeys() {
+        return propertyStore.keys();
+    }
+
+    /**
+     * Subscribe to changes of a property of the wallbox, including properties not modelled by
+     * {@link WattpilotStatus}. See {@link dev.digiried.wattpilot.dto.PropertyKeys} for common keys.
+     *
+     * <p>The listener is called whenever a status message changes the value of the property, but
+     * not for the value current at the time of subscribing, see {@link #getProperty(String)}.
+     * Status messages only invoke the listeners of the properties they actually change.
+     *
+     * @param key the key of the property
+     * @param listener the listener to call on changes
+     * @return the subscription, which has to be closed to unsubscribe
+     */
+    public PropertySubscription subscribe(String key, PropertyListener listener) {
+        return propertyListeners.subscribe(key, propertyStore.intern(key), listener);
+    }
+
+    /**
+     * Set the maximum number of commands awaiting their response at a time. Commands sent while the
+     * maximum is reached are queued and sent as soon as responses to earlier commands arrive.
+     *
+     * @param maxCommandsInFlight the maximum number of commands in flight
+     * @throws IllegalArgumentException if <code>maxCommandsInFlight</code> is not positive
+     */
+    public void setMaxCommandsInFlight(int maxCommandsInFlight) {
+        if (maxCommandsInFlight < 1) {
+            throw new IllegalArgumentException("maxCommandsInFlight must be positive");
         }
-        synchronized (wattpilotStatus) {
-            return new WattpilotStatus(wattpilotStatus);
+        synchronized (queuedCommands) {
+            this.maxCommandsInFlight = maxCommandsInFlight;
         }
+        drainQueuedCommands();
+    }
+
+    /**
+     * Get the maximum number of commands awaiting their response at a time.
+     *
+     * @return the maximum number of commands in flight
+     */
+    public int getMaxCommandsInFlight() {
+        synchronized (queuedCommands) {
+            return maxCommandsInFlight;
+        }
+    }
+
+    /**
+     * Set the time to wait for the response to a command, after which the future of the command
+     * completes exceptionally with a {@link CommandTimeoutException}. The time a command waits for
+     * the pipelining window is not included.
+     *
+     * @param commandTimeout the command timeout
+     * @throws IllegalArgumentException if <code>commandTimeout</code> is not positive
+     */
+    public void setCommandTimeout(Duration commandTimeout) {
+        if (commandTimeout.isNegative() || commandTimeout.isZero()) {
+            throw new IllegalArgumentException("commandTimeout must be positive");
+        }
+        this.commandTimeout = commandTimeout;
+    }
+
+    /**
+     * Get the time to wait for the response to a command.
+     *
+     * @return the command timeout
+     */
+    public Duration getCommandTimeout() {
+        return commandTimeout;
+    }
+
+    /**
+     * Get the number of commands the wallbox did not respond to in time since the client was
+     * created.
+     *
+     * @return the number of timed out commands
+     */
+    public long getTimedOutCommands() {
+        return timedOutCommands.sum();
     }
 
     /**
      * Send a {@link Command} to the wallbox and return a {@link CompletableFuture} that will be
      * completed when the response is received.
      *
+     * <p>Commands are pipelined: up to {@link #getMaxCommandsInFlight()} commands may await their
+     * response at a time, further commands are queued until responses arrive. This method is
+     * thread-safe.
+     *
      * @param command the command to send
      * @return a {@link CompletableFuture} that will be completed when the response is received, or
-     *     completed exceptionally with an {@link IOException} if the command could not be sent
+     *     completed exceptionally with an {@link IOException} if the command could not be sent or
+     *     with a {@link CommandTimeoutException} if no response is received in time, see {@link
+     *     #setCommandTimeout(Duration)}
      */
     public CompletableFuture<CommandResponse> sendCommand(Command command) {
         if (!isConnected()) {
             throw new IllegalStateException("Client is not connected");
         }
 
-        SetValueMessage setValueMessage = SetValueMessage.fromCommand(requestCounter, command);
+        CompletableFuture<CommandResponse> future = new CompletableFuture<>();
+        synchronized (queuedCommands) {
+            if (commandsInFlight >= maxCommandsInFlight || !queuedCommands.isEmpty()) {
+                logger.trace("Pipelining window is full, queueing command");
+                queuedCommands.add(new QueuedCommand(command, future));
+                return future;
+            }
+            commandsInFlight++;
+        }
+        writeCommand(command, future);
+        return future;
+    }
+
+    /**
+     * Writes a command admitted to the pipelining window, which it leaves once the future
+     * completes. Commands already completed by the caller, e.g. cancelled while queued, are not
+     * written.
+     */
+    private void writeCommand(Command command, CompletableFuture<CommandResponse> future) {
+        future.whenComplete((response, t) -> onCommandCompleted());
+        if (future.isDone()) {
+            return;
+        }
+        int requestId = requestCounter.getAndIncrement() & Integer.MAX_VALUE;
+        String json;
         var wattpilotInfo = this.wattpilotInfo;
-        if (wattpilotInfo != null && !wattpilotInfo.secured()) {
-            logger.trace("Sending SetValueMessage");
-            return sendOutgoingMessage(String.valueOf(setValueMessage.requestId), setValueMessage);
+        synchronized (frameBuffer) {
+            frameBuffer.setLength(0);
+            if (wattpilotInfo != null && !wattpilotInfo.secured()) {
+                logger.trace("Sending SetValueMessage");
+                json =
+                        messageEncoder
+                                .writeSetValue(
+                                        frameBuffer,
+                                        requestId,
+                                        command.getKey(),
+                                        command.getValue())
+                                .toString();
+            } else {
+                var signer = this.signer;
+                if (signer == null) {
+                    logger.error("Could not send command: No HMAC signer available");
+                    future.completeExceptionally(
+                            new IOException("Failed to create HMAC: Not authenticated"));
+                    return;
+                }
+                dataBuffer.setLength(0);
+                messageEncoder.writeSetValue(
+                        dataBuffer, requestId, command.getKey(), command.getValue());
+                logger.trace("Sending SecuredMessage");
+                messageEncoder.writeSecuredStart(frameBuffer, dataBuffer, requestId);
+                signer.sign(dataBuffer, frameBuffer);
+                json = messageEncoder.writeSecuredEnd(frameBuffer).toString();
+            }
+        }
+        String messageId = String.valueOf(requestId);
+        sendFrame(messageId, json, future);
+        if (future.isDone()) {
+            responseFutures.remove(messageId, future);
+            return;
         }
+        Duration timeout = commandTimeout;
+        TimeoutWheel.Timeout deadline =
+                timeoutWheel.schedule(
+                        () -> onCommandTimeout(messageId, command, timeout, future), timeout);
+        // the caller may complete the future early, e.g. by cancelling it
+        future.whenComplete(
+                (response, t) -> {
+                    deadline.cancel();
+                    responseFutures.remove(messageId, future);
+                });
+    }
 
-        String data = gson.toJson(setValueMessage);
-        String hmac;
-        try {
-            hmac = AuthUtil.createHmac(hashedPassword, data);
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("Could not send command: Failed to create HMAC", e);
-            CompletableFuture<CommandResponse> future = new CompletableFuture<>();
-            future.completeExceptionally(new IOException("Failed to create HMAC", e));
-            return future;
+    private void onCommandTimeout(
+            String messageId,
+            Command command,
+            Duration timeout,
+            CompletableFuture<CommandResponse> future) {
+        if (responseFutures.remove(messageId, future)) {
+            logger.debug("No response to command {} within {}", command.getKey(), timeout);
+            timedOutCommands.increment();
+            future.completeExceptionally(new CommandTimeoutException(command.getKey(), timeout));
+        }
+    }
+
+    private void onCommandCompleted() {
+        synchronized (queuedCommands) {
+            commandsInFlight--;
+        }
+        drainQueuedCommands();
+    }
+
+    /**
+     * Writes queued commands while the pipelining window has room. Commands completing
+     * synchronously while writing re-enter this method, so writing is trampolined to not grow the
+     * stack.
+     */
+    private void drainQueuedCommands() {
+        synchronized (queuedCommands) {
+            if (drainingCommands) {
+                return;
+            }
+            drainingCommands = true;
+        }
+        while (true) {
+            QueuedCommand next;
+            synchronized (queuedCommands) {
+                if (!isConnected() || commandsInFlight >= maxCommandsInFlight) {
+                    drainingCommands = false;
+                    return;
+                }
+                next = queuedCommands.poll();
+                if (next == null) {
+                    drainingCommands = false;
+                    return;
+                }
+                commandsInFlight++;
+            }
+            writeCommand(next.command(), next.future());
+        }
+    }
+
+    /** Fails the commands waiting for the pipelining window. */
+    private void failQueuedCommands(Throwable cause) {
+        QueuedCommand[] commands;
+        synchronized (queuedCommands) {
+            commands = queuedCommands.toArray(new QueuedCommand[0]);
+            queuedCommands.clear();
+        }
+        for (QueuedCommand command : commands) {
+            command.future().completeExceptionally(cause);
         }
-        SecuredMessage securedMessage = new SecuredMessage(data, requestCounter + "sm", hmac);
-        requestCounter++;
-        logger.trace("Sending SecuredMessage");
-        return sendOutgoingMessage(String.valueOf(setValueMessage.requestId), securedMessage);
     }
 
     /**
@@ -288,7 +747,11 @@ public class WattpilotClient {
 
         CompletableFuture<@Nullable Void> connectedFuture =
                 this.connectedFuture = new CompletableFuture<>();
-        client.connect(new FroniusWebsocketListener(password), uri);
+        FroniusWebsocketListener listener = new FroniusWebsocketListener(password);
+        synchronized (this) {
+            activeListener = listener;
+        }
+        client.connect(listener, uri);
         return connectedFuture;
     }
 
@@ -301,29 +764,24 @@ public class WattpilotClient {
         cancelTimeoutTask();
     }
 
-    private void schedulePingTask() {
+    private void schedulePingTask(FroniusWebsocketListener listener, Session session) {
         cancelPingTask();
         pingTask =
                 scheduler.scheduleAtFixedRate(
                         () -> {
                             logger.debug("Sending PING message");
-                            var session = this.session;
-                            if (session == null) {
-                                throw new IllegalStateException(
-                                        "No WebSocket session available, this should not"
-                                                + " happen");
-                            }
                             session.sendText(
-                                    PING_MESSAGE,
+                                    MessageEncoder.PING,
                                     new Callback() {
                                         @NonNullByDefault({})
                                         @Override
                                         public void fail(Throwable t) {
                                             logger.error("Failed to send ping message", t);
-                                            onDisconnected("Failed to send ping message", t);
+                                            onDisconnected(
+                                                    listener, "Failed to send ping message", t);
                                         }
                                     });
-                            scheduleTimeoutTask();
+                            scheduleTimeoutTask(listener, session);
                         },
                         pingInterval,
                         pingInterval,
@@ -338,14 +796,14 @@ public class WattpilotClient {
         }
     }
 
-    @SuppressWarnings("null")
-    private void scheduleTimeoutTask() {
+    private void scheduleTimeoutTask(FroniusWebsocketListener listener, Session session) {
         cancelTimeoutTask();
         timeoutTask =
                 scheduler.schedule(
                         () -> {
                             logger.warn("Ping to {} timed out", session.getRemoteSocketAddress());
                             onDisconnected(
+                                    listener,
                                     "Ping timed out",
                                     new IOException("No pong received before ping timed out"));
                         },
@@ -354,29 +812,23 @@ public class WattpilotClient {
     }
 
     /**
-     * Sends an outgoing message to the wallbox and returns a {@link CompletableFuture} that will be
-     * completed when the response is received.
+     * Sends an outgoing message to the wallbox and completes the given {@link CompletableFuture}
+     * when the response is received.
      *
      * @param messageId the message ID expected of that message as expected in the response
-     * @param message the message to send
-     * @return a {@link CompletableFuture} that will be completed when the response is received, or
-     *     completed exceptionally with an {@link IOException} if the message could not be sent
+     * @param json the encoded message to send
+     * @param future the future to complete when the response is received, or to complete
+     *     exceptionally with an {@link IOException} if the message could not be sent
      */
-    private CompletableFuture<CommandResponse> sendOutgoingMessage(
-            final String messageId, OutgoingMessage message) {
-        final CompletableFuture<CommandResponse> future = new CompletableFuture<>();
-        if (!isConnected()) {
+    private void sendFrame(
+            final String messageId, String json, final CompletableFuture<CommandResponse> future) {
+        var session = this.session;
+        if (!isConnected() || session == null) {
             future.completeExceptionally(new IOException("Client is not connected"));
-            return future;
+            return;
         }
-        String json = gson.toJson(message);
 
         logger.debug("Writing message {}", json);
-        var session = this.session;
-        if (session == null) {
-            throw new IllegalStateException(
-                    "No WebSocket session available, this should not happen");
-        }
         responseFutures.put(messageId, future);
         session.sendText(
                 json,
@@ -393,7 +845,6 @@ public class WattpilotClient {
                         future.completeExceptionally(t);
                     }
                 });
-        return future;
     }
 
     /** Handles incoming WebSocket messages from the wallbox. */
@@ -401,21 +852,117 @@ public class WattpilotClient {
     @NonNullByDefault({})
     public class FroniusWebsocketListener implements Session.Listener.AutoDemanding {
         private final String password;
+        // the session opened by this listener, null until opened
+        private Session session;
+        // key derivation started on the HelloMessage, before the wallbox requests authentication
+        private AuthUtil.HashAlgorithm speculativeHash;
+        private CompletableFuture<byte[]> speculativeKey;
 
         FroniusWebsocketListener(String password) {
             this.password = password;
         }
 
+        /**
+         * Starts deriving the key with the hash algorithm the device type uses by default, as the
+         * serial number and the password are all the derivation needs. The wallbox requests the
+         * algorithm only with the following {@link AuthRequiredMessage}.
+         */
+        private void deriveKeySpeculatively(WattpilotInfo info) {
+            AuthUtil.HashAlgorithm hash = AuthUtil.defaultHashAlgorithm(info.deviceType());
+            logger.trace("Speculatively deriving {} key", hash);
+            speculativeHash = hash;
+            speculativeKey = deriveKey(info.serial(), password, hash);
+        }
+
+        /**
+         * Gets the key for the hash algorithm requested by the wallbox, from the speculative
+         * derivation if it used the same algorithm.
+         */
+        private CompletableFuture<byte[]> keyFor(WattpilotInfo info, AuthUtil.HashAlgorithm hash) {
+            var speculativeKey = this.speculativeKey;
+            this.speculativeKey = null;
+            if (speculativeKey == null) {
+                return deriveKey(info.serial(), password, hash);
+            }
+            if (speculativeHash != hash) {
+                logger.debug(
+                        "Wallbox requested {} hash algorithm instead of {}, deriving key again",
+                        hash,
+                        speculativeHash);
+                speculativeKey.cancel(false);
+                return deriveKey(info.serial(), password, hash);
+            }
+            return speculativeKey;
+        }
+
+        /**
+         * Answers the {@link AuthRequiredMessage} once the key has been derived, unless the session
+         * has been closed meanwhile.
+         */
+        private void authenticate(
+                Session session, AuthRequiredMessage arm, byte[] key, Throwable failure) {
+            if (session == null || session != WattpilotClient.this.session || !session.isOpen()) {
+                logger.debug("Session was closed while deriving the key");
+                return;
+            }
+            if (failure != null) {
+                Throwable cause =
+                        failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause()
+                                : failure;
+                logger.error("Could not derive key", cause);
+                onDisconnected(
+                        this,
+                        "Authentication failed",
+                        new IOException("Failed to derive key", cause));
+                return;
+            }
+            try {
+                HmacSigner signer = new HmacSigner(key);
+                AuthMessage authMessage = AuthUtil.createAuthMessage(key, arm.token1, arm.token2);
+                String json;
+                synchronized (frameBuffer) {
+                    WattpilotClient.this.signer = signer;
+                    frameBuffer.setLength(0);
+                    json = messageEncoder.writeAuth(frameBuffer, authMessage).toString();
+                }
+                logger.trace("Sending AuthMessage {}", json);
+                session.sendText(
+                        json,
+                        new Callback() {
+                            @Override
+                            public void fail(Throwable t) {
+                                logger.error("Could not send auth message", t);
+                            }
+                        });
+            } catch (NoSuchAlgorithmException e) {
+                logger.error("Could not send auth message", e);
+            }
+        }
+
+        /**
+         * Whether this listener belongs to the current session of the client. Listeners whose
+         * connection failed before it was opened belong to the client while it has no session.
+         */
+        private boolean isCurrent() {
+            return session == WattpilotClient.this.session;
+        }
+
         @Override
         public void onWebSocketClose(int code, String reason) {
             logger.trace("onWebSocketClose {} {}", code, reason);
+            if (!isCurrent()) {
+                logger.debug("Ignoring close of a previous session");
+                return;
+            }
             // see https://developer.mozilla.org/en-US/docs/Web/API/CloseEvent/code for CloseEvent
             // codes
             if (code == 1000 || code == 1005) {
-                onDisconnected("Connection was closed gracefully", null);
+                onDisconnected(this, "Connection was closed gracefully", null);
                 return;
             }
             onDisconnected(
+                    this,
                     "Connection was closed unexpectedly",
                     new IOException(
                             "Connection was closed unexpectedly: code "
@@ -427,13 +974,25 @@ public class WattpilotClient {
         @Override
         public void onWebSocketOpen(Session wsSession) {
             logger.trace("onWebSocketOpen {}", wsSession);
-            session = wsSession;
+            synchronized (WattpilotClient.this) {
+                if (activeListener != this) {
+                    logger.debug("Closing session of a superseded connection attempt");
+                    wsSession.close();
+                    return;
+                }
+                session = wsSession;
+                WattpilotClient.this.session = wsSession;
+            }
         }
 
         @Override
         public void onWebSocketError(Throwable error) {
             logger.debug("onWebSocketError", error);
-            onDisconnected("Connection error", error);
+            if (!isCurrent()) {
+                logger.debug("Ignoring error of a previous session");
+                return;
+            }
+            onDisconnected(this, "Connection error", error);
         }
 
         @Override
@@ -446,9 +1005,24 @@ public class WattpilotClient {
         @Override
         public void onWebSocketText(String message) {
             logger.trace("onWebSocketText {}", message);
+            if (session == null || !isCurrent()) {
+                logger.debug("Ignoring message of a previous session");
+                return;
+            }
+            MessageType statusType = statusDecoder.statusType(message);
+            if (statusType != null) {
+                logger.trace("Received {} frame", statusType);
+                try {
+                    onStatusFrame(message, statusType);
+                } catch (JsonSyntaxException e) {
+                    logger.warn("Could not parse status frame {}", message, e);
+                }
+                return;
+            }
+
             Message m;
             try {
-                m = gson.fromJson(message, Message.class);
+                m = messageDecoder.decode(message);
             } catch (JsonSyntaxException e) {
                 logger.warn("Could not parse message {} to JSON", message);
                 return;
@@ -479,13 +1053,15 @@ public class WattpilotClient {
                 }
                 if (!wattpilotInfo.secured()) {
                     isAuthenticated = true;
-                    onConnected();
+                    onConnected(this);
+                } else {
+                    deriveKeySpeculatively(wattpilotInfo);
                 }
             }
 
             if (m instanceof AuthRequiredMessage arm) {
                 logger.trace("Received AuthRequiredMessage");
-                AuthUtil.HashAlgorithm hash = AuthUtil.HashAlgorithm.PBKDF2;
+                AuthUtil.HashAlgorithm hash;
                 if (arm.hash != null && !arm.hash.isBlank()) {
                     logger.debug("Wattpilot requested {} hash algorithm.", arm.hash);
                     AuthUtil.HashAlgorithm requestedHash =
@@ -493,65 +1069,39 @@ public class WattpilotClient {
                     if (requestedHash != null) {
                         hash = requestedHash;
                     } else {
+                        hash = AuthUtil.HashAlgorithm.PBKDF2;
                         logger.warn(
                                 "Wattpilot requested unknown hash algorithm {}, falling back to"
                                         + " {}.",
                                 arm.hash,
                                 hash);
                     }
-                } else if ("wattpilot_flex".equals(wattpilotInfo.deviceType())) {
-                    hash = AuthUtil.HashAlgorithm.BCRYPT;
-                }
-                try {
-                    hashedPassword = AuthUtil.hashPassword(wattpilotInfo.serial(), password, hash);
-                    AuthMessage authMessage =
-                            AuthUtil.createAuthMessage(hashedPassword, arm.token1, arm.token2);
-                    String json = gson.toJson(authMessage);
-                    logger.trace("Sending AuthMessage {}", json);
-                    session.sendText(
-                            json,
-                            new Callback() {
-                                @NonNullByDefault({})
-                                @Override
-                                public void fail(Throwable t) {
-                                    logger.error("Could not send auth message", t);
-                                }
-                            });
-                } catch (NoSuchAlgorithmException e) {
-                    logger.error("Could not send auth message", e);
+                } else {
+                    hash = AuthUtil.defaultHashAlgorithm(wattpilotInfo.deviceType());
                 }
+                // continue once the key has been derived, without blocking the WebSocket thread
+                var session = this.session;
+                keyFor(wattpilotInfo, hash)
+                        .whenComplete((key, t) -> authenticate(session, arm, key, t));
             }
 
             if (m instanceof AuthSuccessMessage) {
                 logger.trace("Received AuthSuccessMessage");
                 logger.debug("Authenticated successfully with {}", wattpilotInfo.friendlyName());
                 isAuthenticated = true;
-                onConnected();
+                onConnected(this);
             }
 
             if (m instanceof AuthErrorMessage rm) {
                 logger.trace("Received AuthErrorMessage");
                 logger.error("Authentication failed: {}", rm.message);
+                stopReconnecting();
                 onDisconnected(
+                        this,
                         "Authentication failed",
                         new IOException("Authentication failed: " + rm.message));
             }
 
-            if (m instanceof FullStatusMessage fsm) {
-                logger.trace("Received FullStatusMessage");
-                onStatus(fsm.status);
-            }
-
-            if (m instanceof DeltaStatusMessage dsm) {
-                logger.trace("Received DeltaStatusMessage");
-                if (!isInitialized) {
-                    isInitialized = true;
-                    logger.debug("Received (all parts of) full status, status is initialized now");
-                    notifyListenersAboutStatusChange();
-                }
-                onStatus(dsm.status);
-            }
-
             if (m instanceof ResponseMessage rm) {
                 logger.trace("Received ResponseMessage");
                 if (!rm.success && rm.message.equals(PONG_RESPONSE_MESSAGE)) {
@@ -569,8 +1119,43 @@ public class WattpilotClient {
         }
     }
 
-    private void onConnected() { // NOSONAR: we want to keep this method here
-        schedulePingTask();
+    /**
+     * Derives the key from the password of the wallbox on the {@link KeyDerivationPool}, unless it
+     * is cached by the {@link DerivedKeyCache}.
+     */
+    private CompletableFuture<byte[]> deriveKey(
+            String serial, String password, AuthUtil.HashAlgorithm hash) {
+        var keyCache = this.keyCache;
+        if (keyCache != null) {
+            try {
+                byte[] key = keyCache.get(serial, password, hash);
+                if (key != null) {
+                    logger.trace("Using cached {} key", hash);
+                    return CompletableFuture.completedFuture(key);
+                }
+            } catch (NoSuchAlgorithmException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return keyDerivationPool.submit(
+                () -> {
+                    byte[] key = AuthUtil.hashPassword(serial, password, hash);
+                    if (keyCache != null) {
+                        keyCache.put(serial, password, hash, key);
+                    }
+                    return key;
+                });
+    }
+
+    private record QueuedCommand(Command command, CompletableFuture<CommandResponse> future) {}
+
+    private void onConnected( // NOSONAR: we want to keep this method here
+            FroniusWebsocketListener wsListener) {
+        schedulePingTask(wsListener, wsListener.session);
+        synchronized (this) {
+            reconnectEnabled = host != null;
+            reconnectAttempts = 0;
+        }
         var connectedFuture = this.connectedFuture;
         if (connectedFuture != null && !connectedFuture.isDone()) {
             connectedFuture.complete(null);
@@ -583,10 +1168,22 @@ public class WattpilotClient {
         for (WattpilotClientListener listener : listeners) {
             listener.connected(wattpilotInfo);
         }
+        connectionPublisher.publish(ConnectionEvent.connected(wattpilotInfo));
     }
 
-    private void onDisconnected(
-            String reason, @Nullable Throwable cause) { // NOSONAR: we want to keep this method here
+    /**
+     * Tears down the connection of the given listener and notifies the listeners. The connection is
+     * torn down only once, so later callbacks for the same connection are ignored.
+     */
+    private void onDisconnected( // NOSONAR: we want to keep this method here
+            FroniusWebsocketListener wsListener, String reason, @Nullable Throwable cause) {
+        synchronized (this) {
+            if (activeListener != wsListener) {
+                logger.trace("Connection has already been torn down, ignoring: {}", reason);
+                return;
+            }
+            activeListener = null;
+        }
         isAuthenticated = false;
         cancelPingTask();
         var session = this.session;
@@ -594,6 +1191,7 @@ public class WattpilotClient {
             session.close();
         }
         this.session = null; // make sure to always destroy the session, even if already closed
+        markStatusStale();
         // complete connection future exceptionally
         var connectedFuture = this.connectedFuture;
         if (connectedFuture != null && !connectedFuture.isDone()) {
@@ -601,6 +1199,7 @@ public class WattpilotClient {
             this.connectedFuture = null;
         }
         // complete all pending futures exceptionally
+        failQueuedCommands(new IOException("Client disconnected"));
         responseFutures.forEach(
                 (key, future) -> {
                     future.completeExceptionally(new IOException("Client disconnected"));
@@ -610,6 +1209,7 @@ public class WattpilotClient {
         for (WattpilotClientListener listener : listeners) {
             listener.disconnected(reason, cause);
         }
+        connectionPublisher.publish(ConnectionEvent.disconnected(reason, cause));
         var disconnectFuture = this.disconnectFuture;
         if (disconnectFuture != null && !disconnectFuture.isDone()) {
             if (cause != null) {
@@ -619,84 +1219,182 @@ public class WattpilotClient {
             }
             this.disconnectFuture = null;
         }
+        scheduleReconnect();
     }
 
-    private void onStatus(PartialStatus status) { // NOSONAR: we want to keep this method here
-        boolean hasChanged =
-                false; // as a field is only not-null if it is present in a (fragment of a) full
-        // message or a delta message, we can assume that it has changed then
-        synchronized (wattpilotStatus) {
-            if (status.isChargingAllowed() != null) {
-                wattpilotStatus.setChargingAllowed(status.isChargingAllowed());
-                hasChanged = true;
-            }
-            if (status.getAuthorizationState() != null) {
-                wattpilotStatus.setAuthorizationState(status.getAuthorizationState());
-                hasChanged = true;
-            }
-            if (status.isBoostEnabled() != null) {
-                wattpilotStatus.setBoostEnabled(status.isBoostEnabled());
-                hasChanged = true;
-            }
-            if (status.getBoostSoCLimit() != null) {
-                wattpilotStatus.setBoostSoCLimit(status.getBoostSoCLimit());
-                hasChanged = true;
-            }
-            if (status.getChargingCurrent() != null) {
-                wattpilotStatus.setChargingCurrent(status.getChargingCurrent());
-                hasChanged = true;
-            }
-            if (status.getChargingState() != null) {
-                wattpilotStatus.setChargingState(status.getChargingState());
-                hasChanged = true;
+    /**
+     * Keeps the last status snapshot, but marks it as stale until the full status has been received
+     * again. Changes received meanwhile are held back by {@link #publishStatus()}.
+     */
+    private void markStatusStale() {
+        synchronized (statusBuilder) {
+            if (wattpilotStatus != null && !statusBuilder.isStale()) {
+                statusBuilder.setStale(true);
+                wattpilotStatus = statusBuilder.build();
             }
-            if (status.getSurplusPowerThreshold() != null) {
-                wattpilotStatus.setSurplusPowerThreshold(status.getSurplusPowerThreshold());
-                hasChanged = true;
+        }
+    }
+
+    private synchronized void stopReconnecting() {
+        reconnectEnabled = false;
+        host = null;
+        password = null;
+        cancelReconnectTask();
+    }
+
+    private synchronized void cancelReconnectTask() {
+        var reconnectTask = this.reconnectTask;
+        if (reconnectTask != null) {
+            reconnectTask.cancel(false);
+            this.reconnectTask = null;
+        }
+    }
+
+    /**
+     * Schedules the next reconnection attempt according to the {@link ReconnectPolicy}, unless
+     * reconnecting is disabled or an attempt is already scheduled.
+     */
+    private synchronized void scheduleReconnect() {
+        var policy = this.reconnectPolicy;
+        if (policy == null || !reconnectEnabled || reconnectTask != null) {
+            return;
+        }
+        long delay = policy.delayNanos(reconnectAttempts++);
+        logger.debug(
+                "Reconnecting to wallbox at {} in {} ms (attempt {})",
+                host,
+                TimeUnit.NANOSECONDS.toMillis(delay),
+                reconnectAttempts);
+        reconnectTask = scheduler.schedule(this::reconnect, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            reconnectTask = null;
+            if (!reconnectEnabled) {
+                return;
             }
-            if (status.getSurplusSoCThreshold() != null) {
-                wattpilotStatus.setSurplusSoCThreshold(status.getSurplusSoCThreshold());
-                hasChanged = true;
+        }
+        connectGate.submit(connectPriority(), this::attemptReconnect);
+    }
+
+    /**
+     * Attempts to reconnect once admitted by the {@link ConnectGate}. If the attempt fails, {@link
+     * #onDisconnected(FroniusWebsocketListener, String, Throwable)} schedules the next attempt.
+     */
+    private CompletableFuture<@Nullable Void> attemptReconnect() {
+        String host;
+        String password;
+        synchronized (this) {
+            host = this.host;
+            password = this.password;
+            var session = this.session;
+            if (!reconnectEnabled
+                    || host == null
+                    || password == null
+                    || (session != null && session.isOpen())) {
+                return CompletableFuture.completedFuture(null);
             }
-            if (status.getEnforcedChargingState() != null) {
-                wattpilotStatus.setEnforcedState(status.getEnforcedChargingState());
-                hasChanged = true;
+        }
+        logger.debug("Reconnecting to wallbox at {}", host);
+        try {
+            return connectWebsocket(host, password);
+        } catch (IOException e) {
+            logger.debug("Failed to reconnect to wallbox at {}", host, e);
+            scheduleReconnect();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void onStatusInitialized() {
+        boolean wasStale;
+        synchronized (statusBuilder) {
+            wasStale = statusBuilder.isStale();
+            statusBuilder.setStale(false);
+        }
+        if (!isInitialized) {
+            isInitialized = true;
+            logger.debug("Received (all parts of) full status, status is initialized now");
+            publishStatus();
+        } else if (wasStale) {
+            logger.debug("Received (all parts of) full status, status is up to date again");
+            publishStatus();
+        }
+    }
+
+    /**
+     * Applies the status object of a {@link FullStatusMessage} or {@link DeltaStatusMessage} frame
+     * directly to the status, see {@link StatusDecoder}.
+     */
+    private void onStatusFrame(String frame, MessageType type) throws JsonSyntaxException {
+        if (type == MessageType.DELTA_STATUS) {
+            onStatusInitialized();
+        }
+        int changeCount;
+        synchronized (propertyStore) {
+            synchronized (statusBuilder) {
+                statusDecoder.apply(frame, statusBuilder, propertyStore);
             }
-            if (status.isChargingSinglePhase() != null) {
-                wattpilotStatus.setChargingSinglePhase(status.isChargingSinglePhase());
-                hasChanged = true;
+            if (propertyStore.changeCount() > changedPropertyIds.length) {
+                changedPropertyIds = new int[propertyStore.changeCount() * 2];
             }
-            if (status.getChargingMode() != null) {
-                wattpilotStatus.setChargingMode(status.getChargingMode());
-                hasChanged = true;
+            changeCount = propertyStore.takeChanges(changedPropertyIds);
+        }
+        if (isInitialized) {
+            publishStatus();
+        }
+        notifyPropertyListeners(changedPropertyIds, changeCount);
+    }
+
+    private void notifyPropertyListeners(int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            PropertyListener[] listeners = propertyListeners.get(ids[i]);
+            if (listeners == null) {
+                continue;
             }
-            if (status.getChargingMetrics() != null) {
-                wattpilotStatus.setChargingMetrics(status.getChargingMetrics());
-                hasChanged = true;
+            String key = propertyStore.keyOf(ids[i]);
+            JsonElement value;
+            try {
+                value = propertyStore.get(ids[i]);
+            } catch (JsonSyntaxException e) {
+                logger.debug("Failed to decode value of property {}", key, e);
+                continue;
             }
-            if (status.getEnergyCounterSinceStart() != null) {
-                wattpilotStatus.setEnergyCounterSinceStart(status.getEnergyCounterSinceStart());
-                hasChanged = true;
+            if (value == null) {
+                continue;
             }
-            if (status.getEnergyCounterTotal() != null) {
-                wattpilotStatus.setEnergyCounterTotal(status.getEnergyCounterTotal());
-                hasChanged = true;
+            for (PropertyListener listener : listeners) {
+                listener.propertyChanged(key, value);
             }
         }
-        if (isInitialized
-                && hasChanged) { // only notify if status has been updated by a delta message, i.e.
-            // after state initialization
-            notifyListenersAboutStatusChange();
-        }
     }
 
-    private void notifyListenersAboutStatusChange() {
-        WattpilotStatus statusCopy;
-        synchronized (wattpilotStatus) {
-            statusCopy = new WattpilotStatus(wattpilotStatus);
+    /**
+     * Publishes a new snapshot of the status and notifies the listeners about it, if the status
+     * changed since the last snapshot, the last snapshot is stale or no snapshot has been published
+     * yet. While the status is stale, changes are accumulated until the full status has been
+     * received again.
+     */
+    private void publishStatus() {
+        StatusEvent event;
+        synchronized (statusBuilder) {
+            if (statusBuilder.isStale()) {
+                logger.trace("Status is stale, holding back changes until full status is received");
+                return;
+            }
+            int changes = statusBuilder.takeChanges();
+            var current = wattpilotStatus;
+            if (changes == 0 && current != null && !current.isStale()) {
+                logger.trace("Status did not change, skipping notification");
+                return;
+            }
+            WattpilotStatus status = statusBuilder.build();
+            wattpilotStatus = status;
+            event = new StatusEvent(status, changes);
         }
         for (WattpilotClientListener listener : listeners) {
-            listener.statusChanged(statusCopy);
+            listener.statusChanged(event);
         }
+        statusPublisher.publish(event);
     }
 }
@@ -61,4 +61,17 @@ public interface WattpilotClientListener {
      * @param status the new status
      */
     default void statusChanged(WattpilotStatus status) {}
+
+    /**
+     * Called when the client receives a status change from the wallbox. Only called if at least one
+     * field of the status actually changed, except for the first status after connecting.
+     *
+     * <p>By default, this calls {@link #statusChanged(WattpilotStatus)}. Override it to react only
+     * to the fields of interest, see {@link StatusEvent#hasChanged(StatusField)}.
+     *
+     * @param event the status event with the new status and the changed fields
+     */
+    default void statusChanged(StatusEvent event) {
+        statusChanged(event.status());
+    }
 }
@@ -0,0 +1,283 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot;
+
+import dev.digiried.wattpilot.commands.Command;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manager for the {@link WattpilotClient}s of many wallboxes.
+ *
+ * <p>All clients created by a fleet share a single Jetty WebSocket client, and therefore the
+ * selector threads and the byte buffer pool of the given {@link HttpClient}, as well as the codecs
+ * for the messages and the scheduler for their timers. This keeps the memory and thread overhead
+ * per wallbox small, so a single JVM can manage thousands of wallboxes.
+ *
+ * <p>The fleet maintains aggregates over the status of its wallboxes, see {@link #getSummary()},
+ * and indexes to query the wallboxes by their status, see {@link #query()}. Both are updated
+ * incrementally from the status events of the clients, so reading them does not require polling the
+ * status of every client. They reflect the last known status of each wallbox, i.e. a disconnected
+ * wallbox contributes its last status until it is removed from the fleet.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public class WattpilotFleet implements AutoCloseable {
+    private static final int DEFAULT_PING_INTERVAL = 30;
+    private static final int DEFAULT_PING_TIMEOUT = 3;
+
+    /** The default maximum number of broadcast commands awaiting their response at a time. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+    /** The default maximum random delay of connection attempts. */
+    public static final Duration DEFAULT_CONNECT_JITTER = Duration.ofSeconds(2);
+
+    private final Logger logger = LoggerFactory.getLogger(WattpilotFleet.class);
+
+    private final SharedResources resources;
+    private final FleetIndex index = new FleetIndex();
+    // the clients and their listeners updating the index
+    private final Map<WattpilotClient, WattpilotClientListener> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new fleet using the given {@link HttpClient}, whose clients share a scheduler with
+     * all other clients not given a scheduler.
+     *
+     * @param httpClient the HTTP client to use, allows configuring HTTP settings
+     */
+    public WattpilotFleet(HttpClient httpClient) {
+        this(httpClient, SharedScheduler.get());
+    }
+
+    /**
+     * Create a new fleet using the given {@link HttpClient} and scheduler.
+     *
+     * @param httpClient the HTTP client to use, allows configuring HTTP settings
+     * @param scheduler the scheduler to run the timers of all clients on, which is not shut down by
+     *     the fleet
+     */
+    public WattpilotFleet(HttpClient httpClient, ScheduledExecutorService scheduler) {
+        this(
+                httpClient,
+                scheduler,
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_CONNECT_JITTER);
+    }
+
+    /**
+     * Create a new fleet using the given {@link HttpClient} and scheduler, and the provided limits
+     * for connection attempts.
+     *
+     * @param httpClient the HTTP client to use, allows configuring HTTP settings
+     * @param scheduler the scheduler to run the timers of all clients on, which is not shut down by
+     *     the fleet
+     * @param maxConcurrentConnects the maximum number of connection attempts running at once
+     * @param maxConnectJitter the maximum random delay of connection attempts
+     * @throws IllegalArgumentException if <code>maxConcurrentConnects</code> is not positive
+     */
+    public WattpilotFleet(
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler,
+            int maxConcurrentConnects,
+            Duration maxConnectJitter) {
+        this.resources =
+                SharedResources.create(
+                        httpClient,
+                        scheduler,
+                        new ConnectGate(maxConcurrentConnects, maxConnectJitter, scheduler));
+    }
+
+    /**
+     * Create a new client for a wallbox with the default ping interval and timeout.
+     *
+     * @return the new client, not connected yet
+     */
+    public WattpilotClient createClient() {
+        return createClient(DEFAULT_PING_INTERVAL, DEFAULT_PING_TIMEOUT);
+    }
+
+    /**
+     * Create a new client for a wallbox with the provided ping interval and timeout.
+     *
+     * @param pingInterval the ping interval
+     * @param pingTimeout the ping timeout; must be less than <code>pingInterval</code>
+     * @return the new client, not connected yet
+     */
+    public WattpilotClient createClient(int pingInterval, int pingTimeout) {
+        WattpilotClient client = new WattpilotClient(resources, pingInterval, pingTimeout);
+        WattpilotClientListener listener = index.add(client);
+        client.addListener(listener);
+        clients.put(client, listener);
+        return client;
+    }
+
+    /**
+     * Connect a client of the fleet to its wallbox, subject to the admission control of the fleet.
+     * Automatic reconnects of the clients, see {@link WattpilotClient#setReconnectPolicy}, are
+     * subject to the same admission control.
+     *
+     * @param client the client to connect
+     * @param host the hostname or IP address of the wallbox
+     * @param password the password to authenticate with
+     * @return future that completes once the client has successfully connected
+     * @see WattpilotClient#connect(String, String)
+     */
+    public CompletableFuture<@Nullable Void> connect(
+            WattpilotClient client, String host, String password) {
+        return resources
+                .connectGate()
+                .submit(
+                        client.connectPriority(),
+                        () -> {
+                            try {
+                                return client.connect(host, password);
+                            } catch (IOException e) {
+                                return CompletableFuture.failedFuture(e);
+                            }
+                        });
+    }
+
+    /**
+     * Get the number of connection attempts waiting for admission.
+     *
+     * @return the number of queued connection attempts
+     */
+    public int getQueuedConnects() {
+        return resources.connectGate().queued();
+    }
+
+    /**
+     * Disconnect a client and remove it from the fleet.
+     *
+     * @param client the client to remove
+     */
+    public void removeClient(WattpilotClient client) {
+        WattpilotClientListener listener = clients.remove(client);
+        if (listener != null) {
+            client.removeListener(listener);
+            index.remove(client);
+            client.disconnect();
+        }
+    }
+
+    /**
+     * Get the clients of the fleet.
+     *
+     * @return an unmodifiable snapshot of the clients
+     */
+    public Set<WattpilotClient> getClients() {
+        return Set.copyOf(clients.keySet());
+    }
+
+    /**
+     * Get the aggregates over the last known status of all wallboxes.
+     *
+     * @return the aggregates
+     */
+    public FleetSummary getSummary() {
+        return index.summary();
+    }
+
+    /**
+     * Create a query for the wallboxes by their last known status, e.g. <code>
+     * query().withChargingState(ChargingState.CHARGING).withChargingCurrentAbove(16).list()</code>.
+     *
+     * @return a query matching all wallboxes with a known status
+     */
+    public FleetQuery query() {
+        return new FleetQuery(index);
+    }
+
+    /**
+     * Send a command to all clients of the fleet, with at most {@link #DEFAULT_MAX_IN_FLIGHT}
+     * commands awaiting their response at a time.
+     *
+     * @param command the command to send
+     * @return future that completes with the result per client once all commands completed
+     */
+    public CompletableFuture<BroadcastResult> broadcast(Command command) {
+        return broadcast(command, clients.keySet(), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Send a command to the given clients, with at most the given number of commands awaiting their
+     * response at a time.
+     *
+     * @param command the command to send
+     * @param targets the clients to send the command to
+     * @param maxInFlight the maximum number of commands awaiting their response at a time
+     * @return future that completes with the result per client once all commands completed
+     * @throws IllegalArgumentException if <code>maxInFlight</code> is not positive
+     */
+    public CompletableFuture<BroadcastResult> broadcast(
+            Command command, Collection<WattpilotClient> targets, int maxInFlight) {
+        Map<WattpilotClient, Command> commands = new LinkedHashMap<>();
+        for (WattpilotClient client : targets) {
+            commands.put(client, command);
+        }
+        return broadcast(commands, maxInFlight);
+    }
+
+    /**
+     * Send a command per client, with at most the given number of commands awaiting their response
+     * at a time. As soon as a command completes, the next one is sent, so slow wallboxes do not
+     * hold back the others.
+     *
+     * <p>The returned future never completes exceptionally: commands that could not be sent, e.g.
+     * because the client is not connected, or that failed are reported in the result.
+     *
+     * @param commands the command to send per client
+     * @param maxInFlight the maximum number of commands awaiting their response at a time
+     * @return future that completes with the result per client once all commands completed
+     * @throws IllegalArgumentException if <code>maxInFlight</code> is not positive
+     */
+    public CompletableFuture<BroadcastResult> broadcast(
+            Map<WattpilotClient, Command> commands, int maxInFlight) {
+        return new Broadcast(commands, maxInFlight).start();
+    }
+
+    /** Disconnect all clients and stop the shared WebSocket client. */
+    @Override
+    public void close() {
+        for (WattpilotClient client : clients.keySet()) {
+            removeClient(client);
+        }
+        try {
+            resources.webSocketClient().stop();
+        } catch (Exception e) {
+            logger.warn("Failed to stop WebSocket client", e);
+        }
+    }
+}
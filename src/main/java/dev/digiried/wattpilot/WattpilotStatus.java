@@ -23,6 +23,7 @@ import dev.digiried.wattpilot.dto.AuthorizationState;
 import dev.digiried.wattpilot.dto.ChargingMetrics;
 import dev.digiried.wattpilot.dto.ChargingMode;
 import dev.digiried.wattpilot.dto.ChargingState;
+import dev.digiried.wattpilot.dto.DetailedChargingMetrics;
 import dev.digiried.wattpilot.dto.EnforcedChargingState;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -30,27 +31,35 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 /**
  * Class providing the current configuration and status of the Wattpilot.
  *
+ * <p>A status is an immutable snapshot: the client builds a new snapshot whenever the status of the
+ * wallbox changes, so a status can be shared between threads without copying or locking.
+ *
  * @author Florian Hotze - Initial contribution
  */
 @NonNullByDefault
 public class WattpilotStatus {
-    private boolean boostEnabled;
-    private int boostSoCLimit;
-    private boolean chargingAllowed;
-    private @NonNullByDefault({}) AuthorizationState authorizationState;
-    private int chargingCurrent;
-    private @NonNullByDefault({}) ChargingState chargingState;
-    private @NonNullByDefault({}) EnforcedChargingState enforcedState;
-    private boolean chargingSinglePhase;
-    private float surplusPowerThreshold;
-    private int surplusSoCThreshold;
-    private @NonNullByDefault({}) ChargingMode chargingMode;
-    private @NonNullByDefault({}) ChargingMetrics chargingMetrics;
-    private @NonNullByDefault({}) Double energyCounterSinceStart;
-    private @NonNullByDefault({}) Integer energyCounterTotal;
-
-    /** Create a new Wattpilot status. */
-    protected WattpilotStatus() {}
+    private final boolean boostEnabled;
+    private final int boostSoCLimit;
+    private final boolean chargingAllowed;
+    private final @NonNullByDefault({}) AuthorizationState authorizationState;
+    private final int chargingCurrent;
+    private final @NonNullByDefault({}) ChargingState chargingState;
+    private final @NonNullByDefault({}) EnforcedChargingState enforcedState;
+    private final boolean chargingSinglePhase;
+    private final float surplusPowerThreshold;
+    private final int surplusSoCThreshold;
+    private final @NonNullByDefault({}) ChargingMode chargingMode;
+    private final @NonNullByDefault({}) ChargingMetrics chargingMetrics;
+    private final @NonNullByDefault({}) DetailedChargingMetrics detailedChargingMetrics;
+    private final double energyCounterSinceStart;
+    private final boolean hasEnergyCounterTotal;
+    private final int energyCounterTotal;
+    private final boolean stale;
+
+    /** Create a new, empty Wattpilot status. */
+    protected WattpilotStatus() {
+        this(new Builder());
+    }
 
     /**
      * Create a new Wattpilot status by copying another status.
@@ -70,8 +79,31 @@ public class WattpilotStatus {
         this.surplusSoCThreshold = other.surplusSoCThreshold;
         this.chargingMode = other.chargingMode;
         this.chargingMetrics = other.chargingMetrics;
+        this.detailedChargingMetrics = other.detailedChargingMetrics;
         this.energyCounterSinceStart = other.energyCounterSinceStart;
+        this.hasEnergyCounterTotal = other.hasEnergyCounterTotal;
         this.energyCounterTotal = other.energyCounterTotal;
+        this.stale = other.stale;
+    }
+
+    private WattpilotStatus(Builder builder) {
+        this.boostEnabled = builder.boostEnabled;
+        this.boostSoCLimit = builder.boostSoCLimit;
+        this.chargingAllowed = builder.chargingAllowed;
+        this.authorizationState = builder.authorizationState;
+        this.chargingCurrent = builder.chargingCurrent;
+        this.chargingState = builder.chargingState;
+        this.enforcedState = builder.enforcedState;
+        this.chargingSinglePhase = builder.chargingSinglePhase;
+        this.surplusPowerThreshold = builder.surplusPowerThreshold;
+        this.surplusSoCThreshold = builder.surplusSoCThreshold;
+        this.chargingMode = builder.chargingMode;
+        this.chargingMetrics = builder.chargingMetrics;
+        this.detailedChargingMetrics = builder.detailedChargingMetrics;
+        this.energyCounterSinceStart = builder.energyCounterSinceStart;
+        this.hasEnergyCounterTotal = builder.hasEnergyCounterTotal;
+        this.energyCounterTotal = builder.energyCounterTotal;
+        this.stale = builder.stale;
     }
 
     /**
@@ -187,14 +219,24 @@ public class WattpilotStatus {
         return chargingMetrics;
     }
 
+    /**
+     * Get all current charging metrics in full precision, including power factors and the neutral
+     * conductor.
+     *
+     * @return the current detailed charging metrics
+     */
+    public DetailedChargingMetrics getDetailedChargingMetrics() {
+        return detailedChargingMetrics;
+    }
+
     /**
      * Get the energy counter in watt-hours (Wh) since the start of the current charging session. If
      * no session is active, the counter since the start of the last session is returned.
      *
      * @return the energy counter of the current or the last charging session
      */
-    public Double getEnergyCounterSinceStart() {
-        return energyCounterSinceStart;
+    public @NonNullByDefault({}) Double getEnergyCounterSinceStart() {
+        return Double.isNaN(energyCounterSinceStart) ? null : energyCounterSinceStart;
     }
 
     /**
@@ -202,63 +244,182 @@ public class WattpilotStatus {
      *
      * @return the total energy counter
      */
-    public Integer getEnergyCounterTotal() {
-        return energyCounterTotal;
-    }
-
-    void setBoostEnabled(boolean boostEnabled) {
-        this.boostEnabled = boostEnabled;
-    }
-
-    void setBoostSoCLimit(int boostSoCLimit) {
-        this.boostSoCLimit = boostSoCLimit;
-    }
-
-    void setChargingAllowed(boolean chargingAllowed) {
-        this.chargingAllowed = chargingAllowed;
+    public @NonNullByDefault({}) Integer getEnergyCounterTotal() {
+        return hasEnergyCounterTotal ? energyCounterTotal : null;
     }
 
-    void setAuthorizationState(AuthorizationState authorizationState) {
-        this.authorizationState = authorizationState;
-    }
-
-    void setChargingCurrent(int chargingCurrent) {
-        this.chargingCurrent = chargingCurrent;
-    }
-
-    void setChargingState(ChargingState chargingState) {
-        this.chargingState = chargingState;
-    }
-
-    void setEnergyCounterSinceStart(Double energyCounterSinceStart) {
-        this.energyCounterSinceStart = energyCounterSinceStart;
-    }
-
-    void setEnforcedState(EnforcedChargingState enforcedState) {
-        this.enforcedState = enforcedState;
-    }
-
-    void setChargingSinglePhase(boolean chargingSinglePhase) {
-        this.chargingSinglePhase = chargingSinglePhase;
-    }
-
-    void setSurplusPowerThreshold(float surplusPowerThreshold) {
-        this.surplusPowerThreshold = surplusPowerThreshold;
-    }
-
-    void setSurplusSoCThreshold(int surplusSoCThreshold) {
-        this.surplusSoCThreshold = surplusSoCThreshold;
-    }
-
-    void setChargingMode(ChargingMode chargingMode) {
-        this.chargingMode = chargingMode;
-    }
-
-    void setChargingMetrics(ChargingMetrics chargingMetrics) {
-        this.chargingMetrics = chargingMetrics;
+    /**
+     * Whether this status is stale, i.e. it is the last status received before the connection to
+     * the wallbox was lost, and the client has not received the full status since reconnecting.
+     *
+     * @return whether the status is stale
+     */
+    public boolean isStale() {
+        return stale;
     }
 
-    void setEnergyCounterTotal(Integer energyCounterTotal) {
-        this.energyCounterTotal = energyCounterTotal;
+    /**
+     * Mutable working copy of a {@link WattpilotStatus}, which is updated by the status messages of
+     * the wallbox and creates new snapshots of the status.
+     *
+     * <p>A builder is not thread-safe.
+     */
+    static final class Builder {
+        private boolean boostEnabled;
+        private int boostSoCLimit;
+        private boolean chargingAllowed;
+        private @NonNullByDefault({}) AuthorizationState authorizationState;
+        private int chargingCurrent;
+        private @NonNullByDefault({}) ChargingState chargingState;
+        private @NonNullByDefault({}) EnforcedChargingState enforcedState;
+        private boolean chargingSinglePhase;
+        private float surplusPowerThreshold;
+        private int surplusSoCThreshold;
+        private @NonNullByDefault({}) ChargingMode chargingMode;
+        private @NonNullByDefault({}) ChargingMetrics chargingMetrics;
+        private @NonNullByDefault({}) DetailedChargingMetrics detailedChargingMetrics;
+        private double energyCounterSinceStart = Double.NaN;
+        private boolean hasEnergyCounterTotal;
+        private int energyCounterTotal;
+        private boolean stale;
+        private int changes;
+
+        /**
+         * Create a new snapshot of the current state of this builder.
+         *
+         * @return the new status
+         */
+        WattpilotStatus build() {
+            return new WattpilotStatus(this);
+        }
+
+        /**
+         * Get the fields changed since the last call of this method and reset them.
+         *
+         * @return the bit mask of the changed {@link StatusField}s
+         */
+        int takeChanges() {
+            int changes = this.changes;
+            this.changes = 0;
+            return changes;
+        }
+
+        boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * Mark the status as stale or up to date. Unlike the fields of the status, this is not
+         * recorded as change.
+         *
+         * @param stale whether the status is stale
+         */
+        void setStale(boolean stale) {
+            this.stale = stale;
+        }
+
+        private void changed(StatusField field) {
+            changes |= field.getMask();
+        }
+
+        void setBoostEnabled(boolean boostEnabled) {
+            if (this.boostEnabled != boostEnabled) {
+                this.boostEnabled = boostEnabled;
+                changed(StatusField.BOOST_ENABLED);
+            }
+        }
+
+        void setBoostSoCLimit(int boostSoCLimit) {
+            if (this.boostSoCLimit != boostSoCLimit) {
+                this.boostSoCLimit = boostSoCLimit;
+                changed(StatusField.BOOST_SOC_LIMIT);
+            }
+        }
+
+        void setChargingAllowed(boolean chargingAllowed) {
+            if (this.chargingAllowed != chargingAllowed) {
+                this.chargingAllowed = chargingAllowed;
+                changed(StatusField.CHARGING_ALLOWED);
+            }
+        }
+
+        void setAuthorizationState(AuthorizationState authorizationState) {
+            if (this.authorizationState != authorizationState) {
+                this.authorizationState = authorizationState;
+                changed(StatusField.AUTHORIZATION_STATE);
+            }
+        }
+
+        void setChargingCurrent(int chargingCurrent) {
+            if (this.chargingCurrent != chargingCurrent) {
+                this.chargingCurrent = chargingCurrent;
+                changed(StatusField.CHARGING_CURRENT);
+            }
+        }
+
+        void setChargingState(ChargingState chargingState) {
+            if (this.chargingState != chargingState) {
+                this.chargingState = chargingState;
+                changed(StatusField.CHARGING_STATE);
+            }
+        }
+
+        void setEnergyCounterSinceStart(double energyCounterSinceStart) {
+            if (Double.compare(this.energyCounterSinceStart, energyCounterSinceStart) != 0) {
+                this.energyCounterSinceStart = energyCounterSinceStart;
+                changed(StatusField.ENERGY_COUNTER_SINCE_START);
+            }
+        }
+
+        void setEnforcedState(EnforcedChargingState enforcedState) {
+            if (this.enforcedState != enforcedState) {
+                this.enforcedState = enforcedState;
+                changed(StatusField.ENFORCED_CHARGING_STATE);
+            }
+        }
+
+        void setChargingSinglePhase(boolean chargingSinglePhase) {
+            if (this.chargingSinglePhase != chargingSinglePhase) {
+                this.chargingSinglePhase = chargingSinglePhase;
+                changed(StatusField.CHARGING_SINGLE_PHASE);
+            }
+        }
+
+        void setSurplusPowerThreshold(float surplusPowerThreshold) {
+            if (Float.compare(this.surplusPowerThreshold, surplusPowerThreshold) != 0) {
+                this.surplusPowerThreshold = surplusPowerThreshold;
+                changed(StatusField.SURPLUS_POWER_THRESHOLD);
+            }
+        }
+
+        void setSurplusSoCThreshold(int surplusSoCThreshold) {
+            if (this.surplusSoCThreshold != surplusSoCThreshold) {
+                this.surplusSoCThreshold = surplusSoCThreshold;
+                changed(StatusField.SURPLUS_SOC_THRESHOLD);
+            }
+        }
+
+        void setChargingMode(ChargingMode chargingMode) {
+            if (this.chargingMode != chargingMode) {
+                this.chargingMode = chargingMode;
+                changed(StatusField.CHARGING_MODE);
+            }
+        }
+
+        void setChargingMetrics(DetailedChargingMetrics detailedChargingMetrics) {
+            if (!detailedChargingMetrics.equals(this.detailedChargingMetrics)) {
+                this.detailedChargingMetrics = detailedChargingMetrics;
+                this.chargingMetrics = detailedChargingMetrics.toChargingMetrics();
+                changed(StatusField.CHARGING_METRICS);
+            }
+        }
+
+        void setEnergyCounterTotal(int energyCounterTotal) {
+            if (!this.hasEnergyCounterTotal || this.energyCounterTotal != energyCounterTotal) {
+                this.hasEnergyCounterTotal = true;
+                this.energyCounterTotal = energyCounterTotal;
+                changed(StatusField.ENERGY_COUNTER_TOTAL);
+            }
+        }
     }
 }
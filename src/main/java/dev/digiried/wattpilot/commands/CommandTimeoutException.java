@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot.commands;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Exception completing the future of a {@link Command} if the wallbox did not respond to the
+ * command before its deadline.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+@NonNullByDefault
+public class CommandTimeoutException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+    private final Duration timeout;
+
+    /**
+     * Create a new command timeout exception.
+     *
+     * @param key the key of the command
+     * @param timeout the timeout the wallbox did not respond within
+     */
+    public CommandTimeoutException(String key, Duration timeout) {
+        super("No response to command " + key + " within " + timeout.toMillis() + " ms");
+        this.key = key;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Get the key of the command that timed out.
+     *
+     * @return the key of the command
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the timeout the wallbox did not respond within.
+     *
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
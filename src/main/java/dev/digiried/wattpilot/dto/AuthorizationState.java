@@ -30,6 +30,8 @@ public enum AuthorizationState {
     /** Waiting for charging authorization. */
     WAITING(1);
 
+    private static final AuthorizationState[] VALUES = values();
+
     private final int value;
 
     AuthorizationState(int value) {
@@ -52,7 +54,7 @@ public enum AuthorizationState {
      * @return the authorization state, or <code>null</code> if the API value is unknown
      */
     public static AuthorizationState fromValue(int value) {
-        for (AuthorizationState state : AuthorizationState.values()) {
+        for (AuthorizationState state : VALUES) {
             if (state.value == value) {
                 return state;
             }
@@ -20,7 +20,8 @@
 package dev.digiried.wattpilot.dto;
 
 /**
- * Record for charging metrics.
+ * Record for charging metrics. See {@link DetailedChargingMetrics} for all metrics in full
+ * precision.
  *
  * @param power total power in watts (W)
  * @param voltage1 phase 1 voltage in volts (V)
@@ -45,20 +46,6 @@ public record ChargingMetrics(
         float power1,
         float power2,
         float power3) {
-    ChargingMetrics(Integer[] chargingEnergy) {
-        this(
-                chargingEnergy[11],
-                chargingEnergy[0],
-                chargingEnergy[1],
-                chargingEnergy[2],
-                chargingEnergy[4],
-                chargingEnergy[5],
-                chargingEnergy[6],
-                chargingEnergy[7],
-                chargingEnergy[8],
-                chargingEnergy[9]);
-    }
-
     @Override
     public String toString() {
         return String.format(
@@ -38,6 +38,8 @@ public enum ChargingMode {
      */
     NEXT_TRIP(5);
 
+    private static final ChargingMode[] VALUES = values();
+
     private final int value;
 
     ChargingMode(int value) {
@@ -57,10 +59,10 @@ public enum ChargingMode {
      * Get the charging mode from the API value.
      *
      * @param value the API value
-     * @return the charging mode
+     * @return the charging mode, or <code>null</code> if the API value is unknown
      */
-    static ChargingMode fromValue(int value) {
-        for (ChargingMode mode : ChargingMode.values()) {
+    public static ChargingMode fromValue(int value) {
+        for (ChargingMode mode : VALUES) {
             if (mode.value == value) {
                 return mode;
             }
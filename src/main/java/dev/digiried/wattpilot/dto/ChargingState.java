@@ -34,6 +34,8 @@ public enum ChargingState {
     /** Car connected and charging completed. */
     COMPLETE(4);
 
+    private static final ChargingState[] VALUES = values();
+
     private final int value;
 
     ChargingState(int value) {
@@ -53,10 +55,10 @@ public enum ChargingState {
      * Get the charging state from the API value.
      *
      * @param value the API value
-     * @return the charging state
+     * @return the charging state, or <code>null</code> if the API value is unknown
      */
-    static ChargingState fromValue(int value) {
-        for (ChargingState state : ChargingState.values()) {
+    public static ChargingState fromValue(int value) {
+        for (ChargingState state : VALUES) {
             if (state.value == value) {
                 return state;
             }
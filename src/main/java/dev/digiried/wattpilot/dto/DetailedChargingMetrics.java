@@ -0,0 +1,116 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot.dto;
+
+/**
+ * Record for charging metrics in full precision, i.e. all values of the {@link
+ * PropertyKeys#CHARGING_ENERGY} array as reported by the wallbox.
+ *
+ * @param voltage1 phase 1 voltage in volts (V)
+ * @param voltage2 phase 2 voltage in volts (V)
+ * @param voltage3 phase 3 voltage in volts (V)
+ * @param voltageN neutral conductor voltage in volts (V)
+ * @param amperage1 phase 1 amperage in amperes (A)
+ * @param amperage2 phase 2 amperage in amperes (A)
+ * @param amperage3 phase 3 amperage in amperes (A)
+ * @param power1 power of phase 1 in watts (W)
+ * @param power2 power of phase 2 in watts (W)
+ * @param power3 power of phase 3 in watts (W)
+ * @param powerN power of the neutral conductor in watts (W)
+ * @param power total power in watts (W)
+ * @param powerFactor1 power factor of phase 1 in percent (%)
+ * @param powerFactor2 power factor of phase 2 in percent (%)
+ * @param powerFactor3 power factor of phase 3 in percent (%)
+ * @param powerFactorN power factor of the neutral conductor in percent (%)
+ * @author Florian Hotze - Initial contribution
+ */
+public record DetailedChargingMetrics(
+        double voltage1,
+        double voltage2,
+        double voltage3,
+        double voltageN,
+        double amperage1,
+        double amperage2,
+        double amperage3,
+        double power1,
+        double power2,
+        double power3,
+        double powerN,
+        double power,
+        double powerFactor1,
+        double powerFactor2,
+        double powerFactor3,
+        double powerFactorN) {
+    /** The length of the {@link PropertyKeys#CHARGING_ENERGY} array. */
+    public static final int CHARGING_ENERGY_LENGTH = 16;
+
+    /**
+     * Create the charging metrics from the values of the {@link PropertyKeys#CHARGING_ENERGY}
+     * array.
+     *
+     * @param chargingEnergy the charging energy array
+     * @return the charging metrics
+     * @throws IllegalArgumentException if the array does not have {@link #CHARGING_ENERGY_LENGTH}
+     *     values
+     */
+    public static DetailedChargingMetrics fromChargingEnergy(double[] chargingEnergy) {
+        if (chargingEnergy.length != CHARGING_ENERGY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Charging energy must have " + CHARGING_ENERGY_LENGTH + " values");
+        }
+        return new DetailedChargingMetrics(
+                chargingEnergy[0],
+                chargingEnergy[1],
+                chargingEnergy[2],
+                chargingEnergy[3],
+                chargingEnergy[4],
+                chargingEnergy[5],
+                chargingEnergy[6],
+                chargingEnergy[7],
+                chargingEnergy[8],
+                chargingEnergy[9],
+                chargingEnergy[10],
+                chargingEnergy[11],
+                chargingEnergy[12],
+                chargingEnergy[13],
+                chargingEnergy[14],
+                chargingEnergy[15]);
+    }
+
+    /**
+     * Get the {@link ChargingMetrics}, i.e. the subset of these metrics with voltages and amperages
+     * truncated to integers.
+     *
+     * @return the charging metrics
+     */
+    public ChargingMetrics toChargingMetrics() {
+        return new ChargingMetrics(
+                (float) power,
+                (int) voltage1,
+                (int) voltage2,
+                (int) voltage3,
+                (int) amperage1,
+                (int) amperage2,
+                (int) amperage3,
+                (float) power1,
+                (float) power2,
+                (float) power3);
+    }
+}
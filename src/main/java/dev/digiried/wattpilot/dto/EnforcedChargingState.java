@@ -32,6 +32,8 @@ public enum EnforcedChargingState {
     /** Force charging. */
     ON(2);
 
+    private static final EnforcedChargingState[] VALUES = values();
+
     private final int value;
 
     EnforcedChargingState(int value) {
@@ -51,10 +53,10 @@ public enum EnforcedChargingState {
      * Get the enforced charging state from the API value.
      *
      * @param value the API value
-     * @return the enforced charging state
+     * @return the enforced charging state, or <code>null</code> if the API value is unknown
      */
     public static EnforcedChargingState fromValue(int value) {
-        for (EnforcedChargingState state : EnforcedChargingState.values()) {
+        for (EnforcedChargingState state : VALUES) {
             if (state.value == value) {
                 return state;
             }
@@ -72,7 +72,7 @@ public class PartialStatus {
     Integer logicMode;
 
     @SerializedName(PropertyKeys.CHARGING_ENERGY)
-    Integer[] chargingEnergy;
+    double[] chargingEnergy;
 
     @SerializedName(PropertyKeys.ENERGY_COUNTER_SINCE_START)
     Double energyCounterSinceStart;
@@ -206,10 +206,25 @@ public class PartialStatus {
      * @return
      */
     public ChargingMetrics getChargingMetrics() {
-        if (chargingEnergy == null || chargingEnergy.length != 16) {
+        DetailedChargingMetrics metrics = getDetailedChargingMetrics();
+        if (metrics == null) {
             return null;
         }
-        return new ChargingMetrics(chargingEnergy);
+        return metrics.toChargingMetrics();
+    }
+
+    /**
+     * Get all charging metrics in full precision, including power factors and the neutral
+     * conductor.
+     *
+     * @return
+     */
+    public DetailedChargingMetrics getDetailedChargingMetrics() {
+        if (chargingEnergy == null
+                || chargingEnergy.length != DetailedChargingMetrics.CHARGING_ENERGY_LENGTH) {
+            return null;
+        }
+        return DetailedChargingMetrics.fromChargingEnergy(chargingEnergy);
     }
 
     /**
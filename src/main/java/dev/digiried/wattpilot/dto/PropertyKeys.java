@@ -74,6 +74,12 @@ public final class PropertyKeys {
     /** Charging metrics like power, voltage, amperage (RO) */
     public static final String CHARGING_ENERGY = "nrg";
 
+    /** Temperature sensors in degrees Celsius (RO) */
+    public static final String TEMPERATURES = "tma";
+
+    /** Configured RFID cards (RW) */
+    public static final String RFID_CARDS = "cards";
+
     /** Energy counter since the start of the charging session in watt-hours (RO) */
     public static final String ENERGY_COUNTER_SINCE_START = "wh";
 }
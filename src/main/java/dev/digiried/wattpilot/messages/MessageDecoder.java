@@ -0,0 +1,247 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot.messages;
+
+import dev.digiried.wattpilot.dto.PartialStatus;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming decoder for incoming {@link Message}s.
+ *
+ * <p>In contrast to {@link MessageDeserializer}, which first builds a {@link
+ * com.google.gson.JsonObject} tree and then deserializes that tree, this decoder reads each frame
+ * exactly once with a {@link JsonReader}: it identifies the message type from the leading <code>
+ * type</code> property and fills the target message directly from the token stream.
+ *
+ * <p>Frames not starting with the <code>type</code> property are handed to the given {@link Gson}
+ * instance, which must have the {@link MessageDeserializer} registered for {@link Message}.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public class MessageDecoder {
+    private static final String TYPE = "type";
+    private static final Map<String, MessageType> MESSAGE_TYPES = new HashMap<>();
+
+    static {
+        for (MessageType type : MessageType.values()) {
+            MESSAGE_TYPES.put(type.getSerializedName(), type);
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(MessageDecoder.class);
+
+    private final Gson gson;
+    private final TypeAdapter<PartialStatus> statusAdapter;
+
+    /**
+     * Create a new message decoder.
+     *
+     * @param gson the Gson instance used to decode {@link PartialStatus} and as fallback for frames
+     *     that do not start with the message type
+     */
+    public MessageDecoder(Gson gson) {
+        this.gson = gson;
+        this.statusAdapter = gson.getAdapter(PartialStatus.class);
+    }
+
+    /**
+     * Decode a JSON frame received from the wallbox.
+     *
+     * @param json the JSON frame
+     * @return the decoded message, or <code>null</code> if the message type is unknown
+     * @throws JsonSyntaxException if the frame is not valid JSON or does not match the message type
+     */
+    public Message decode(String json) throws JsonSyntaxException {
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.beginObject();
+            if (!reader.hasNext()
+                    || !TYPE.equals(reader.nextName())
+                    || reader.peek() != JsonToken.STRING) {
+                logger.trace("Message does not start with its type, falling back to Gson");
+                return gson.fromJson(json, Message.class);
+            }
+            String typeName = reader.nextString();
+            MessageType type = MESSAGE_TYPES.get(typeName);
+            if (type == null) {
+                logger.debug("Unknown message type {}", typeName);
+                return null;
+            }
+            logger.trace("Decoding message of type {}", typeName);
+            IncomingMessage message =
+                    switch (type) {
+                        case HELLO -> readHello(reader);
+                        case AUTH_REQUIRED -> readAuthRequired(reader);
+                        case AUTH_SUCCESS -> readAuthSuccess(reader);
+                        case AUTH_ERROR -> readAuthError(reader);
+                        case FULL_STATUS -> readFullStatus(reader);
+                        case DELTA_STATUS -> readDeltaStatus(reader);
+                        case RESPONSE -> readResponse(reader);
+                        default -> null;
+                    };
+            if (message == null) {
+                logger.debug("Unknown message type {}", typeName);
+                return null;
+            }
+            reader.endObject();
+            return message;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private HelloMessage readHello(JsonReader reader) throws IOException {
+        HelloMessage message = new HelloMessage();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "serial" -> message.serial = nextString(reader);
+                case "hostname" -> message.hostname = nextString(reader);
+                case "friendly_name" -> message.friendlyName = nextString(reader);
+                case "manufacturer" -> message.manufacturer = nextString(reader);
+                case "devicetype" -> message.deviceType = nextString(reader);
+                case "version" -> message.version = nextString(reader);
+                case "protocol" -> message.protocol = nextInt(reader, message.protocol);
+                case "secured" -> message.secured = nextBoolean(reader, message.secured);
+                default -> reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private AuthRequiredMessage readAuthRequired(JsonReader reader) throws IOException {
+        AuthRequiredMessage message = new AuthRequiredMessage();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "token1" -> message.token1 = nextString(reader);
+                case "token2" -> message.token2 = nextString(reader);
+                case "hash" -> message.hash = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private AuthSuccessMessage readAuthSuccess(JsonReader reader) throws IOException {
+        AuthSuccessMessage message = new AuthSuccessMessage();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "token3" -> message.token3 = nextString(reader);
+                case "hash" -> message.hash = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private AuthErrorMessage readAuthError(JsonReader reader) throws IOException {
+        AuthErrorMessage message = new AuthErrorMessage();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "token3" -> message.token3 = nextString(reader);
+                case "hash" -> message.hash = nextString(reader);
+                case "message" -> message.message = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private FullStatusMessage readFullStatus(JsonReader reader) throws IOException {
+        FullStatusMessage message = new FullStatusMessage();
+        while (reader.hasNext()) {
+            if ("status".equals(reader.nextName())) {
+                message.status = statusAdapter.read(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private DeltaStatusMessage readDeltaStatus(JsonReader reader) throws IOException {
+        DeltaStatusMessage message = new DeltaStatusMessage();
+        while (reader.hasNext()) {
+            if ("status".equals(reader.nextName())) {
+                message.status = statusAdapter.read(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    private ResponseMessage readResponse(JsonReader reader) throws IOException {
+        ResponseMessage message = new ResponseMessage();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "success" -> message.success = nextBoolean(reader, message.success);
+                case "message" -> message.message = nextString(reader);
+                case "requestId" -> message.requestId = nextString(reader);
+                case "status" -> message.status = statusAdapter.read(reader);
+                default -> reader.skipValue();
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Read the next value as string. Like Gson's default string adapter, numbers and booleans are
+     * read as their string representation.
+     */
+    private static String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(reader.nextBoolean());
+        }
+        return reader.nextString();
+    }
+
+    private static int nextInt(JsonReader reader, int fallback) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return fallback;
+        }
+        return reader.nextInt();
+    }
+
+    private static boolean nextBoolean(JsonReader reader, boolean fallback) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return fallback;
+        }
+        return reader.nextBoolean();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * #%L
+ * wattpilot4j
+ * %%
+ * Copyright (C) 2025 Florian Hotze
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package dev.digiried.wattpilot.messages;
+
+import dev.digiried.wattpilot.commands.CommandValue;
+import dev.digiried.wattpilot.dto.AuthorizationState;
+import dev.digiried.wattpilot.dto.ChargingMode;
+import dev.digiried.wattpilot.dto.EnforcedChargingState;
+
+import com.google.gson.Gson;
+
+/**
+ * Streaming encoder for {@link OutgoingMessage}s.
+ *
+ * <p>Messages are written field by field into a caller-provided {@link StringBuilder}, which can be
+ * reused across messages, instead of being serialized reflectively by Gson. Command values of the
+ * types used by the {@link dev.digiried.wattpilot.commands.Command}s are written directly, other
+ * values are serialized with the given {@link Gson} instance.
+ *
+ * @author Florian Hotze - Initial contribution
+ */
+public class MessageEncoder {
+    /** The PING frame, which is answered by the wallbox with an error response. */
+    public static final String PING = "{\"type\":\"PING\"}";
+
+    private static final String TYPE_SET_VALUE = MessageType.SET_VALUE.getSerializedName();
+    private static final String TYPE_SECURED_MSG = MessageType.SECURED_MSG.getSerializedName();
+    private static final String TYPE_AUTH = MessageType.AUTH.getSerializedName();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Gson gson;
+
+    /**
+     * Create a new message encoder.
+     *
+     * @param gson the Gson instance used to serialize command values of unknown types
+     */
+    public MessageEncoder(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Write a {@link SetValueMessage}.
+     *
+     * @param out the buffer to append the message to
+     * @param message the message
+     * @return the buffer
+     */
+    public StringBuilder writeSetValue(StringBuilder out, SetValueMessage message) {
+        return writeSetValue(out, message.requestId, message.key, message.value);
+    }
+
+    /**
+     * Write a {@link SetValueMessage} from its fields, without creating the message.
+     *
+     * @param out the buffer to append the message to
+     * @param requestId the request id
+     * @param key the key of the property to change
+     * @param value the new value
+     * @return the buffer
+     */
+    public StringBuilder writeSetValue(
+            StringBuilder out, int requestId, String key, CommandValue<?> value) {
+        out.append("{\"type\":\"").append(TYPE_SET_VALUE).append("\",\"requestId\":");
+        out.append(requestId).append(",\"key\":");
+        appendString(out, key);
+        out.append(",\"value\":");
+        appendValue(out, value.value());
+        return out.append('}');
+    }
+
+    /**
+     * Write a {@link SecuredMessage}.
+     *
+     * @param out the buffer to append the message to
+     * @param message the message
+     * @return the buffer
+     */
+    public StringBuilder writeSecured(StringBuilder out, SecuredMessage message) {
+        return writeSecured(out, message.data, message.requestId, message.hmac);
+    }
+
+    /**
+     * Write a {@link SecuredMessage} from its fields, without creating the message.
+     *
+     * @param out the buffer to append the message to
+     * @param data the serialized {@link SetValueMessage}
+     * @param requestId the request id
+     * @param hmac the HMAC authenticating the data
+     * @return the buffer
+     */
+    public StringBuilder writeSecured(
+            StringBuilder out, CharSequence data, CharSequence requestId, CharSequence hmac) {
+        out.append("{\"type\":\"").append(TYPE_SECURED_MSG).append("\",\"data\":");
+        appendString(out, data);
+        out.append(",\"requestId\":");
+        appendString(out, requestId);
+        out.append(",\"hmac\":");
+        appendString(out, hmac);
+        return out.append('}');
+    }
+
+    /**
+     * Write the beginning of a {@link SecuredMessage} up to its HMAC, which allows appending the
+     * HMAC directly to the buffer. The HMAC must be a hex string and the message must be completed
+     * with {@link #writeSecuredEnd(StringBuilder)}.
+     *
+     * @param out the buffer to append the message to
+     * @param data the serialized {@link SetValueMessage}
+     * @param requestId the request id of the {@link SetValueMessage}, the request id of the secured
+     *     message is this id with the suffix <code>sm</code>
+     * @return the buffer
+     */
+    public StringBuilder writeSecuredStart(StringBuilder out, CharSequence data, int requestId) {
+        out.append("{\"type\":\"").append(TYPE_SECURED_MSG).append("\",\"data\":");
+        appendString(out, data);
+        return out.append(",\"requestId\":\"").append(requestId).append("sm\",\"hmac\":\"");
+    }
+
+    /**
+     * Complete a {@link SecuredMessage} started with {@link #writeSecuredStart(StringBuilder,
+     * CharSequence, int)} after its HMAC.
+     *
+     * @param out the buffer to append to
+     * @return the buffer
+     */
+    public StringBuilder writeSecuredEnd(StringBuilder out) {
+        return out.append("\"}");
+    }
+
+    /**
+     * Write an {@link AuthMessage}.
+     *
+     * @param out the buffer to append the message to
+     * @param message the message
+     * @return the buffer
+     */
+    public StringBuilder writeAuth(StringBuilder out, AuthMessage message) {
+        out.append("{\"type\":\"").append(TYPE_AUTH).append("\",\"token3\":");
+        appendString(out, message.token3);
+        out.append(",\"hash\":");
+        appendString(out, message.hash);
+        return out.append('}');
+    }
+
+    private void appendValue(StringBuilder out, Object value) {
+        if (value instanceof Integer i) {
+            out.append(i.intValue());
+        } else if (value instanceof Boolean b) {
+            out.append(b.booleanValue());
+        } else if (value instanceof Float f) {
+            if (f.isNaN() || f.isInfinite()) {
+                throw new IllegalArgumentException("JSON forbids NaN and infinities: " + f);
+            }
+            out.append(f.floatValue());
+        } else if (value instanceof ChargingMode cm) {
+            out.append(cm.toValue());
+        } else if (value instanceof AuthorizationState as) {
+            out.append(as.toValue());
+        } else if (value instanceof EnforcedChargingState es) {
+            out.append(es.toValue());
+        } else if (value instanceof String s) {
+            appendString(out, s);
+        } else {
+            gson.toJson(value, out);
+        }
+    }
+
+    /**
+     * Append a JSON string literal, escaping quotes, backslashes, control characters and the line
+     * and paragraph separators.
+     */
+    private static void appendString(StringBuilder out, CharSequence s) {
+        out.append('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        out.append("\\u")
+                                .append(HEX_DIGITS[(c >> 12) & 0xF])
+                                .append(HEX_DIGITS[(c >> 8) & 0xF])
+                                .append(HEX_DIGITS[(c >> 4) & 0xF])
+                                .append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}